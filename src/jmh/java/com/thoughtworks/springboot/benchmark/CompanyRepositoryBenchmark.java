@@ -0,0 +1,69 @@
+package com.thoughtworks.springboot.benchmark;
+
+import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeStatisticsSummary;
+import com.thoughtworks.springboot.persistence.SnapshotStore;
+import com.thoughtworks.springboot.persistence.WriteAheadLog;
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import com.thoughtworks.springboot.repository.EmployeeRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompanyRepositoryBenchmark {
+    private static final int LOAD_CHUNK_SIZE = 100_000;
+    //Employees are spread evenly, so each company holds tableSize / COMPANY_COUNT of them
+    private static final int COMPANY_COUNT = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int tableSize;
+
+    private CompanyRepository companyRepository;
+
+    @Setup(Level.Trial)
+    public void loadEmployees() {
+        EmployeeRepository employeeRepository = new EmployeeRepository();
+        employeeRepository.cleanUpEmployeeData();
+        companyRepository = new CompanyRepository(employeeRepository, WriteAheadLog.disabled(), SnapshotStore.disabled());
+        while (companyRepository.size() < COMPANY_COUNT) {
+            companyRepository.addCompany(new Company(null, "Company " + companyRepository.size()));
+        }
+        List<Employee> chunk = new ArrayList<>(LOAD_CHUNK_SIZE);
+        for (int i = 0; i < tableSize; i++) {
+            Employee employee = new Employee("Employee " + i, 20 + i % 45, i % 2 == 0 ? "Male" : "Female", 1000 + i % 100_000);
+            employee.setCompanyId((long) (i % COMPANY_COUNT) + 1);
+            chunk.add(employee);
+            if (chunk.size() == LOAD_CHUNK_SIZE) {
+                employeeRepository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+        employeeRepository.insertAll(chunk);
+    }
+
+    @Benchmark
+    public List<Employee> getEmployeesByCompanyId() {
+        return companyRepository.getEmployeesByCompanyId(randomCompanyId());
+    }
+
+    @Benchmark
+    public EmployeeStatisticsSummary getEmployeeStatisticsByCompanyId() {
+        return companyRepository.getEmployeeStatisticsByCompanyId(randomCompanyId());
+    }
+
+    @Benchmark
+    public Company findById() {
+        return companyRepository.findById(randomCompanyId());
+    }
+
+    private static long randomCompanyId() {
+        return ThreadLocalRandom.current().nextLong(COMPANY_COUNT) + 1;
+    }
+}
@@ -0,0 +1,59 @@
+package com.thoughtworks.springboot.benchmark;
+
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.repository.EmployeeRepository;
+import com.thoughtworks.springboot.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Every create grows the table, so each iteration reloads it and then times one fixed batch of creates;
+//the table never grows past tableSize + CREATE_BATCH. Scores are per batch
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(batchSize = EmployeeCreateBenchmark.CREATE_BATCH)
+@Measurement(batchSize = EmployeeCreateBenchmark.CREATE_BATCH)
+public class EmployeeCreateBenchmark {
+    static final int CREATE_BATCH = 100;
+    private static final int LOAD_CHUNK_SIZE = 100_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int tableSize;
+
+    @Param({"false", "true"})
+    private boolean columnar;
+
+    private EmployeeService employeeService;
+
+    @Setup(Level.Iteration)
+    public void loadEmployees() {
+        EmployeeRepository employeeRepository = new EmployeeRepository(columnar);
+        employeeRepository.cleanUpEmployeeData();
+        employeeService = new EmployeeService(employeeRepository);
+        List<Employee> chunk = new ArrayList<>(LOAD_CHUNK_SIZE);
+        for (int i = 0; i < tableSize; i++) {
+            chunk.add(newEmployee(i));
+            if (chunk.size() == LOAD_CHUNK_SIZE) {
+                employeeRepository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+        employeeRepository.insertAll(chunk);
+    }
+
+    @Benchmark
+    public Employee create() {
+        return employeeService.create(newEmployee(ThreadLocalRandom.current().nextInt(1000)));
+    }
+
+    private static Employee newEmployee(int seed) {
+        Employee employee = new Employee("Employee " + seed, 20 + seed % 45, seed % 2 == 0 ? "Male" : "Female", 1000 + seed % 100_000);
+        //Creates must name an existing company, the repositories seed companies 1 to 5
+        employee.setCompanyId((long) (seed % 5) + 1);
+        return employee;
+    }
+}
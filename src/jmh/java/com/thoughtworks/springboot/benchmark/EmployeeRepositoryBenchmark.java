@@ -0,0 +1,108 @@
+package com.thoughtworks.springboot.benchmark;
+
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.repository.EmployeeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeRepositoryBenchmark {
+    private static final int LOAD_CHUNK_SIZE = 100_000;
+    private static final long PAGE_SIZE = 50L;
+
+    @Param({"1000", "100000", "1000000"})
+    private int tableSize;
+
+    @Param({"false", "true"})
+    private boolean columnar;
+
+    //Benchmarks here never add rows, so the table stays at tableSize; create is in EmployeeCreateBenchmark
+    private EmployeeRepository employeeRepository;
+
+    @Setup(Level.Trial)
+    public void loadEmployees() {
+        employeeRepository = new EmployeeRepository(columnar);
+        employeeRepository.cleanUpEmployeeData();
+        List<Employee> chunk = new ArrayList<>(LOAD_CHUNK_SIZE);
+        for (int i = 0; i < tableSize; i++) {
+            chunk.add(newEmployee(i));
+            if (chunk.size() == LOAD_CHUNK_SIZE) {
+                employeeRepository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+        employeeRepository.insertAll(chunk);
+    }
+
+    @Benchmark
+    public Employee findById() {
+        return employeeRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Employee> findByGender() {
+        return employeeRepository.findByGender("female");
+    }
+
+    @Benchmark
+    public List<Employee> listByPageFromMiddle() {
+        return employeeRepository.listByPage(tableSize / PAGE_SIZE / 2 + 1, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object listAfterFromMiddle() {
+        return employeeRepository.listAfter((long) tableSize / 2, (int) PAGE_SIZE);
+    }
+
+    //Read/write mixes: three readers per writer, then one reader per writer
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public Employee readMostlyRead() {
+        return employeeRepository.findById(randomId());
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public Employee readMostlyWrite() {
+        return employeeRepository.updateEmployee(newEmployee(randomId()));
+    }
+
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(2)
+    public Employee balancedRead() {
+        return employeeRepository.findById(randomId());
+    }
+
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(2)
+    public Employee balancedWrite() {
+        return employeeRepository.updateEmployee(newEmployee(randomId()));
+    }
+
+    @Benchmark
+    public void streamAll(Blackhole blackhole) {
+        employeeRepository.streamAll().forEach(blackhole::consume);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(tableSize) + 1;
+    }
+
+    private static Employee newEmployee(long seed) {
+        Employee employee = new Employee("Employee " + seed, 20 + (int) (seed % 45), seed % 2 == 0 ? "Male" : "Female", 1000 + (int) (seed % 100_000));
+        employee.setId(seed);
+        employee.setCompanyId(seed % 100);
+        return employee;
+    }
+}
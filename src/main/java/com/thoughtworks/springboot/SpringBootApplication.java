@@ -1,8 +1,12 @@
 package com.thoughtworks.springboot;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @org.springframework.boot.autoconfigure.SpringBootApplication
+@EnableCaching
+@EnableScheduling
 public class SpringBootApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,35 @@
+package com.thoughtworks.springboot;
+
+import org.apache.catalina.connector.Connector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Serves every request on its own virtual thread instead of Tomcat's bounded worker pool, so a request
+ * parked on a slow client or a write-ahead log fsync no longer holds one of a few hundred platform threads.
+ * Off by default; reads the same switch Spring Boot 3.2 later added natively.
+ */
+@Configuration
+@ConditionalOnClass(Connector.class)
+@ConditionalOnProperty(prefix = "spring.threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadRequestExecutor() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    //Async MVC work such as the StreamingResponseBody export otherwise runs on the pooled application executor
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
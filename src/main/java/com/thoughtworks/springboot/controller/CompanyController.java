@@ -3,26 +3,38 @@ package com.thoughtworks.springboot.controller;
 import com.thoughtworks.springboot.exception.CompanyNotFoundException;
 import com.thoughtworks.springboot.exception.CompanyValidationException;
 import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.model.CompanyDeletionStatus;
 import com.thoughtworks.springboot.repository.CompanyRepository;
+import com.thoughtworks.springboot.service.CompanyDeletionService;
 import com.thoughtworks.springboot.exception.EmployeeValidationException;
 import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeStatisticsSummary;
+import com.thoughtworks.springboot.utility.EntityTags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.net.URI;
 import java.util.List;
 
 //TODO Use CompanyService instead of CompanyRepository
 @RequestMapping(path = "companies")
+//Servlet only, ReactiveCompanyController covers the reactive profile
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 public class CompanyController {
 
     private final CompanyRepository companyRepository;
+    private final CompanyDeletionService companyDeletionService;
 
     @Autowired
-    public CompanyController(CompanyRepository companyRepository) {
+    public CompanyController(CompanyRepository companyRepository, CompanyDeletionService companyDeletionService) {
         this.companyRepository = companyRepository;
+        this.companyDeletionService = companyDeletionService;
     }
 
     @GetMapping
@@ -31,9 +43,25 @@ public class CompanyController {
         return ResponseEntity.ok(companies);
     }
 
+    //Same ranking as /employees/search, over company names
+    @GetMapping(path = "/search")
+    public ResponseEntity<Object> searchCompanies(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(companyRepository.searchByName(q, limit));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    //A matching If-None-Match gets a bodiless 304, the company is never serialized
     @GetMapping(path = "/{id}")
-    public Company findCompanyById(@PathVariable Long id) {
-        return companyRepository.findById(id);
+    public ResponseEntity<Company> findCompanyById(@PathVariable Long id, WebRequest request) {
+        Company company = companyRepository.findById(id);
+        String eTag = EntityTags.of(company.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(company);
     }
 
     @GetMapping(params = {"pageNumber", "pageSize"})
@@ -41,6 +69,14 @@ public class CompanyController {
         return companyRepository.listByPage(pageNumber, pageSize);
     }
 
+    @GetMapping(params = {"limit"})
+    public ResponseEntity<Object> findCompaniesAfter(@RequestParam(required = false) Long after, @RequestParam Integer limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Limit must be greater than zero.");
+        }
+        return ResponseEntity.ok(companyRepository.listAfter(after, limit));
+    }
+
     @GetMapping("/{companyId}/employees")
     public ResponseEntity<List<Employee>> getEmployeesByCompanyId(@PathVariable Long companyId) {
         try {
@@ -51,6 +87,11 @@ public class CompanyController {
         }
     }
 
+    @GetMapping("/{companyId}/stats")
+    public EmployeeStatisticsSummary getEmployeeStatisticsByCompanyId(@PathVariable Long companyId) {
+        return companyRepository.getEmployeeStatisticsByCompanyId(companyId);
+    }
+
     @PostMapping()
     public ResponseEntity<Object> addCompany(@RequestBody Company company) {
         try {
@@ -64,12 +105,16 @@ public class CompanyController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Object> updateCompanyById(@PathVariable Long id, @RequestBody Company updatedCompany) {
+    public ResponseEntity<Object> updateCompanyById(@PathVariable Long id, @RequestBody Company updatedCompany,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
             //TODO Handle validation handling in Company Service
-            Company updated = companyRepository.updateCompanyById(id, updatedCompany);
+            Long expectedVersion = EntityTags.expectedVersion(ifMatch);
+            Company updated = expectedVersion == null
+                    ? companyRepository.updateCompanyById(id, updatedCompany)
+                    : companyRepository.updateCompanyById(id, updatedCompany, expectedVersion);
             if (updated != null) {
-                return ResponseEntity.ok(updated);
+                return ResponseEntity.ok().eTag(EntityTags.of(updated.getVersion())).body(updated);
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -80,14 +125,20 @@ public class CompanyController {
         }
     }
 
+    //The company is gone once this returns, its employees are detached in the background, see the Location
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteCompanyById(@PathVariable Long id) {
+    public ResponseEntity<CompanyDeletionStatus> deleteCompanyById(@PathVariable Long id) {
         try {
-            //TODO Handle validation handling in Company Service
-            companyRepository.deleteCompanyById(id);
-            return ResponseEntity.noContent().build();
+            CompanyDeletionStatus status = companyDeletionService.requestDeletion(id);
+            return ResponseEntity.accepted().location(URI.create("/companies/" + id + "/deletion")).body(status);
         } catch (CompanyNotFoundException ex) {
             return ResponseEntity.notFound().build();
         }
     }
+
+    @GetMapping("/{id}/deletion")
+    public ResponseEntity<CompanyDeletionStatus> getCompanyDeletionStatus(@PathVariable Long id) {
+        CompanyDeletionStatus status = companyDeletionService.getStatus(id);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
 }
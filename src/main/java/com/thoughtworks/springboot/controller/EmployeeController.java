@@ -1,63 +1,194 @@
 package com.thoughtworks.springboot.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thoughtworks.springboot.exception.EmployeeNotFoundException;
-import com.thoughtworks.springboot.exception.EmployeeValidationException;
+import com.thoughtworks.springboot.model.AgeBand;
+import com.thoughtworks.springboot.model.BatchImportResult;
+import com.thoughtworks.springboot.model.CacheStatistics;
 import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeQuery;
+import com.thoughtworks.springboot.model.EmployeeQueryResult;
+import com.thoughtworks.springboot.model.EmployeeStatisticsSummary;
+import com.thoughtworks.springboot.model.ValidationResult;
 import com.thoughtworks.springboot.service.EmployeeService;
+import com.thoughtworks.springboot.utility.EmployeeExporter;
+import com.thoughtworks.springboot.utility.EmployeeProjection;
+import com.thoughtworks.springboot.utility.EntityTags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RequestMapping(path = "employees")
+//Servlet only, it relies on WebRequest and StreamingResponseBody; ReactiveEmployeeController covers the reactive profile
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 public class EmployeeController {
 
+    private static final String QUERY_PLAN_HEADER = "X-Query-Plan";
+
     private final EmployeeService employeeService;
+    private final ObjectMapper objectMapper;
+    private final EmployeeExporter employeeExporter;
 
     @Autowired
-    public EmployeeController(EmployeeService employeeService) {
+    public EmployeeController(EmployeeService employeeService, ObjectMapper objectMapper) {
         this.employeeService = employeeService;
+        this.objectMapper = objectMapper;
+        this.employeeExporter = new EmployeeExporter(objectMapper);
     }
 
+    //includeInactive also returns rows compaction has moved to the archive
     @GetMapping
-    public List<Employee> listAllEmployees() {
-        return employeeService.listAllEmployees();
+    public List<Employee> listAllEmployees(@RequestParam(defaultValue = "false") boolean includeInactive) {
+        return employeeService.listAllEmployees(includeInactive);
+    }
+
+    @GetMapping(path = "/export")
+    public ResponseEntity<StreamingResponseBody> exportEmployees(@RequestParam(defaultValue = EmployeeExporter.NDJSON) String format) {
+        if (!EmployeeExporter.isSupported(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Export format must be 'ndjson' or 'csv'.");
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<Employee> employees = employeeService.streamAllEmployees()) {
+                employeeExporter.export(employees, format, outputStream);
+            }
+        };
+        MediaType contentType = EmployeeExporter.CSV.equalsIgnoreCase(format)
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
+    //Filters, sorts and projects on the server, e.g. ?minSalary=5000&companyId=1&sort=-salary&fields=id,name.
+    //The access path chosen is reported in X-Query-Plan
+    @GetMapping(path = "/query")
+    public ResponseEntity<Object> queryEmployees(EmployeeQuery query) {
+        EmployeeQueryResult result;
+        try {
+            result = employeeService.query(query);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        Object body = query.getFields() == null
+                ? result.getEmployees()
+                : result.getEmployees().stream()
+                .map(employee -> EmployeeProjection.project(employee, query.getFields()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok().header(QUERY_PLAN_HEADER, result.getPlan().name()).body(body);
+    }
+
+    //Typeahead: the top matches for a name prefix, falling back to close misspellings
+    @GetMapping(path = "/search")
+    public ResponseEntity<Object> searchEmployees(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(employeeService.searchByName(q, limit));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    @GetMapping(path = "/stats")
+    public EmployeeStatisticsSummary getEmployeeStatistics() {
+        return employeeService.getEmployeeStatistics();
     }
 
+    @GetMapping(path = "/cache/stats")
+    public List<CacheStatistics> getCacheStatistics() {
+        return employeeService.getCacheStatistics();
+    }
+
+    //A matching If-None-Match gets a bodiless 304, the employee is never serialized
     @GetMapping(path = "/{id}")
-    public Employee findEmployeeById(@PathVariable Long id) {
-        return employeeService.findEmployeeById(id);
+    public ResponseEntity<Employee> findEmployeeById(@PathVariable Long id,
+                                                     @RequestParam(defaultValue = "false") boolean includeInactive,
+                                                     WebRequest request) {
+        Employee employee = employeeService.findEmployeeById(id, includeInactive);
+        String eTag = EntityTags.of(employee.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(employee);
     }
 
     @GetMapping(params = {"gender"})
-    public List<Employee> findEmployeeByGender(@RequestParam String gender) {
-        return employeeService.findEmployeeByGender(gender);
+    public List<Employee> findEmployeeByGender(@RequestParam String gender,
+                                               @RequestParam(required = false) Boolean active,
+                                               @RequestParam(required = false) AgeBand ageBand,
+                                               @RequestParam(defaultValue = "false") boolean includeInactive) {
+        return employeeService.findEmployeeByGender(gender, active, ageBand, includeInactive);
     }
 
     @PostMapping()
     public ResponseEntity<Object> addEmployee(@RequestBody Employee employee) {
-        try {
-            //TODO Handle validation handling in Employee Service
-            Employee addedEmployee = employeeService.create(employee);
-            return ResponseEntity.status(HttpStatus.CREATED).body(addedEmployee);
-        } catch (EmployeeValidationException ex) {
-            return ResponseEntity.badRequest().body(ex.getMessage());
+        //Invalid input is answered from the validation result, no exception is thrown for it
+        ValidationResult validation = employeeService.validate(employee);
+        if (!validation.isValid()) {
+            return ResponseEntity.badRequest().body(validation);
         }
+        Employee addedEmployee = employeeService.create(employee, validation);
+        return ResponseEntity.status(HttpStatus.CREATED).body(addedEmployee);
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchImportResult> addEmployees(@RequestBody List<Employee> employees) {
+        return toBatchResponse(employeeService.createBatch(employees));
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchImportResult> addEmployeesFromNdjson(InputStream body) throws IOException {
+        List<Employee> employees = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                employees.add(objectMapper.readValue(line, Employee.class));
+            } catch (JsonProcessingException ex) {
+                employees.add(null);
+            }
+        }
+        return toBatchResponse(employeeService.createBatch(employees));
+    }
+
+    private static ResponseEntity<BatchImportResult> toBatchResponse(BatchImportResult result) {
+        HttpStatus status = result.getCreated().isEmpty() ? HttpStatus.BAD_REQUEST : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(result);
     }
 
     @PutMapping(path = "/{id}")
-    public ResponseEntity<Object> updateEmployeeById(@PathVariable Long id, @RequestBody Employee updatedEmployee) {
+    public ResponseEntity<Object> updateEmployeeById(@PathVariable Long id, @RequestBody Employee updatedEmployee,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         updatedEmployee.setId(id);
+        ValidationResult validation = employeeService.validateUpdate(updatedEmployee);
+        if (!validation.isValid()) {
+            return ResponseEntity.badRequest().body(validation);
+        }
         try {
             //TODO Handle validation handling in Employee Service
-            Employee updated = employeeService.update(updatedEmployee);
+            Employee updated = employeeService.update(updatedEmployee, EntityTags.expectedVersion(ifMatch));
 
             if (updated != null) {
-                return ResponseEntity.ok(updated);
+                return ResponseEntity.ok().eTag(EntityTags.of(updated.getVersion())).body(updated);
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -89,4 +220,12 @@ public class EmployeeController {
         }
         return employees;
     }
-}
\ No newline at end of file
+
+    @GetMapping(params = {"limit"})
+    public ResponseEntity<Object> findEmployeesAfter(@RequestParam(required = false) Long after, @RequestParam Integer limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Limit must be greater than zero.");
+        }
+        return ResponseEntity.ok(employeeService.findEmployeesAfter(after, limit));
+    }
+}
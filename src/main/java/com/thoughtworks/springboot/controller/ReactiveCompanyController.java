@@ -0,0 +1,50 @@
+package com.thoughtworks.springboot.controller;
+
+import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//Read-only streaming variant of CompanyController
+@RequestMapping(path = "reactive/companies", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+@RestController
+public class ReactiveCompanyController {
+
+    private final CompanyRepository companyRepository;
+
+    @Autowired
+    public ReactiveCompanyController(CompanyRepository companyRepository) {
+        this.companyRepository = companyRepository;
+    }
+
+    @GetMapping
+    public Flux<Company> listAllCompanies() {
+        return companyRepository.listAllReactive();
+    }
+
+    @GetMapping(path = "/{id}")
+    public Mono<Company> findCompanyById(@PathVariable Long id) {
+        return companyRepository.findByIdReactive(id);
+    }
+
+    @GetMapping(params = {"pageNumber", "pageSize"})
+    public Flux<Company> findCompaniesByPage(@RequestParam Long pageNumber, @RequestParam Long pageSize) {
+        return companyRepository.listByPageReactive(pageNumber, pageSize)
+                .onErrorMap(IllegalArgumentException.class, ex -> new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage()));
+    }
+
+    @GetMapping("/{companyId}/employees")
+    public Flux<Employee> getEmployeesByCompanyId(@PathVariable Long companyId) {
+        return companyRepository.getEmployeesByCompanyIdReactive(companyId);
+    }
+}
@@ -0,0 +1,52 @@
+package com.thoughtworks.springboot.controller;
+
+import com.thoughtworks.springboot.model.AgeBand;
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.service.EmployeeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//Read-only streaming variant of EmployeeController, NDJSON emits each row as it is pulled from the table
+@RequestMapping(path = "reactive/employees", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+@RestController
+public class ReactiveEmployeeController {
+
+    private final EmployeeService employeeService;
+
+    @Autowired
+    public ReactiveEmployeeController(EmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @GetMapping
+    public Flux<Employee> listAllEmployees() {
+        return employeeService.listAllEmployeesReactive();
+    }
+
+    @GetMapping(path = "/{id}")
+    public Mono<Employee> findEmployeeById(@PathVariable Long id) {
+        return employeeService.findEmployeeByIdReactive(id);
+    }
+
+    @GetMapping(params = {"gender"})
+    public Flux<Employee> findEmployeeByGender(@RequestParam String gender,
+                                               @RequestParam(required = false) Boolean active,
+                                               @RequestParam(required = false) AgeBand ageBand) {
+        return employeeService.findEmployeeByGenderReactive(gender, active, ageBand);
+    }
+
+    @GetMapping(params = {"pageNumber", "pageSize"})
+    public Flux<Employee> findEmployeesByPage(@RequestParam Long pageNumber, @RequestParam Long pageSize) {
+        return employeeService.findEmployeesByPageReactive(pageNumber, pageSize)
+                .onErrorMap(IllegalArgumentException.class, ex -> new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage()));
+    }
+}
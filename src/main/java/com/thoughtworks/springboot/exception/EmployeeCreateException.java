@@ -1,10 +1,15 @@
 package com.thoughtworks.springboot.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Stackless like EmployeeValidationException, it only ever reports rejected input
+@ResponseStatus(HttpStatus.BAD_REQUEST)
 public class EmployeeCreateException extends RuntimeException{
     public EmployeeCreateException() {
-        super("Employee was not created");
+        this("Employee was not created");
     }
     public EmployeeCreateException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -1,7 +1,12 @@
 package com.thoughtworks.springboot.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown on bad input, where a stack trace costs more than it tells, so none is captured
+@ResponseStatus(HttpStatus.BAD_REQUEST)
 public class EmployeeValidationException extends RuntimeException {
     public EmployeeValidationException(String exceptionMessage) {
-        super(exceptionMessage);
+        super(exceptionMessage, null, false, false);
     }
 }
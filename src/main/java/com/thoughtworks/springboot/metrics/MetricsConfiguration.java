@@ -0,0 +1,43 @@
+package com.thoughtworks.springboot.metrics;
+
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import com.thoughtworks.springboot.repository.EmployeeRepository;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters beyond the per-endpoint http.server.requests timers Spring MVC already records.
+ * Histogram buckets for both timers are switched on in application.yml and scraped at /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfiguration {
+    public static final String REPOSITORY_OPERATIONS = "repository.operations";
+    public static final String TABLE_ROWS = "repository.table.rows";
+    public static final String VALIDATION_FAILURES = "employee.validation.failures";
+
+    //Backs @Timed on the repositories, tagged with class, method and exception
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    //Read only when scraped, so the write path pays nothing for them
+    @Bean
+    public MeterBinder tableRowGauges(EmployeeRepository employeeRepository, CompanyRepository companyRepository) {
+        return registry -> {
+            Gauge.builder(TABLE_ROWS, employeeRepository, EmployeeRepository::size)
+                    .tag("table", "employees")
+                    .register(registry);
+            Gauge.builder(TABLE_ROWS, employeeRepository, EmployeeRepository::archivedSize)
+                    .tag("table", "employees_archive")
+                    .register(registry);
+            Gauge.builder(TABLE_ROWS, companyRepository, CompanyRepository::size)
+                    .tag("table", "companies")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.thoughtworks.springboot.model;
+
+public enum AgeBand {
+    UNDER_MIN_AGE,
+    FROM_MIN_AGE_TO_29,
+    FROM_30_TO_39,
+    FROM_40_TO_49,
+    FROM_50_TO_MAX_AGE,
+    OVER_MAX_AGE;
+
+    //Bands are bounded by Employee's valid age range so out-of-range rows land in their own bands
+    public static AgeBand of(Integer age) {
+        if (age == null) {
+            return null;
+        }
+        if (age < Employee.MIN_VALID_AGE) {
+            return UNDER_MIN_AGE;
+        }
+        if (age > Employee.MAX_VALID_AGE) {
+            return OVER_MAX_AGE;
+        }
+        if (age < 30) {
+            return FROM_MIN_AGE_TO_29;
+        }
+        if (age < 40) {
+            return FROM_30_TO_39;
+        }
+        if (age < 50) {
+            return FROM_40_TO_49;
+        }
+        return FROM_50_TO_MAX_AGE;
+    }
+}
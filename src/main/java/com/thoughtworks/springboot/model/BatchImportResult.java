@@ -0,0 +1,21 @@
+package com.thoughtworks.springboot.model;
+
+import java.util.List;
+
+public class BatchImportResult {
+    private final List<Employee> created;
+    private final List<BatchRowFailure> failures;
+
+    public BatchImportResult(List<Employee> created, List<BatchRowFailure> failures) {
+        this.created = created;
+        this.failures = failures;
+    }
+
+    public List<Employee> getCreated() {
+        return created;
+    }
+
+    public List<BatchRowFailure> getFailures() {
+        return failures;
+    }
+}
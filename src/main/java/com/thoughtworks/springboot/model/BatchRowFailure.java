@@ -0,0 +1,20 @@
+package com.thoughtworks.springboot.model;
+
+public class BatchRowFailure {
+    private final Integer row;
+    private final String message;
+
+    public BatchRowFailure(Integer row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    //Zero-based position of the row in the submitted batch
+    public Integer getRow() {
+        return row;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,45 @@
+package com.thoughtworks.springboot.model;
+
+public class CacheStatistics {
+    private final String name;
+    private final Long size;
+    private final Long hitCount;
+    private final Long missCount;
+    private final Long evictionCount;
+    private final Double hitRate;
+
+    public CacheStatistics(String name, Long size, Long hitCount, Long missCount, Long evictionCount, Double hitRate) {
+        this.name = name;
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.hitRate = hitRate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    //Estimated number of entries, exact only once pending maintenance has run
+    public Long getSize() {
+        return size;
+    }
+
+    public Long getHitCount() {
+        return hitCount;
+    }
+
+    public Long getMissCount() {
+        return missCount;
+    }
+
+    //Entries dropped by the size bound or the TTL, not explicit invalidations
+    public Long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public Double getHitRate() {
+        return hitRate;
+    }
+}
@@ -0,0 +1,45 @@
+package com.thoughtworks.springboot.model;
+
+import java.util.List;
+
+public class ColumnStatistics {
+    private final Long count;
+    private final Long sum;
+    private final Integer min;
+    private final Integer max;
+    private final Double mean;
+    private final List<HistogramBucket> histogram;
+
+    public ColumnStatistics(Long count, Long sum, Integer min, Integer max, Double mean, List<HistogramBucket> histogram) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.histogram = histogram;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public Long getSum() {
+        return sum;
+    }
+
+    public Integer getMin() {
+        return min;
+    }
+
+    public Integer getMax() {
+        return max;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public List<HistogramBucket> getHistogram() {
+        return histogram;
+    }
+}
@@ -6,6 +6,8 @@ import javax.annotation.Resource;
 public class Company {
     private Long id;
     private String name;
+    //Bumped by the repository on every update, served as the ETag of the company
+    private Long version;
 
     public Company(Long id, String name) {
         this.id = id;
@@ -27,4 +29,12 @@ public class Company {
     public void setName(String name) {
         this.name = name;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.thoughtworks.springboot.model;
+
+//Progress of one company's cascading delete, written by the deletion worker and read by the status endpoint
+public class CompanyDeletionStatus {
+    public enum State {
+        IN_PROGRESS, COMPLETED, FAILED
+    }
+
+    private final Long companyId;
+    private volatile State state = State.IN_PROGRESS;
+    private volatile long detachedEmployees;
+    private volatile String failure;
+
+    public CompanyDeletionStatus(Long companyId) {
+        this.companyId = companyId;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getDetachedEmployees() {
+        return detachedEmployees;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    //Only the single deletion worker thread writes, so the read-then-write needs no lock
+    public void addDetached(int count) {
+        detachedEmployees += count;
+    }
+
+    public void complete() {
+        state = State.COMPLETED;
+    }
+
+    public void fail(String message) {
+        failure = message;
+        state = State.FAILED;
+    }
+}
@@ -0,0 +1,22 @@
+package com.thoughtworks.springboot.model;
+
+import java.util.List;
+
+public class CursorPage<T> {
+    private final List<T> items;
+    private final Long nextCursor;
+
+    public CursorPage(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    //Pass back as ?after= to fetch the following page, null once the last page is reached
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -1,8 +1,8 @@
 package com.thoughtworks.springboot.model;
 
 public class Employee {
-    private static final Long MIN_VALID_AGE = 18L;
-    private static final Long MAX_VALID_AGE = 65L;
+    static final Long MIN_VALID_AGE = 18L;
+    static final Long MAX_VALID_AGE = 65L;
     private Boolean isActive;
     private Long id;
     private String name;
@@ -11,6 +11,10 @@ public class Employee {
     private Integer salary;
 
     private Long companyId;
+    //Bumped by the repository on every update, served as the ETag of the employee
+    private Long version;
+    //Epoch millis the employee was deactivated, set by the repository and null while active
+    private Long inactiveSince;
 
     public Employee() {
         this.isActive = true;
@@ -42,6 +46,22 @@ public class Employee {
         this.companyId = companyId;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getInactiveSince() {
+        return inactiveSince;
+    }
+
+    public void setInactiveSince(Long inactiveSince) {
+        this.inactiveSince = inactiveSince;
+    }
+
     public Boolean getIsActive() {
         return isActive;
     }
@@ -50,8 +70,9 @@ public class Employee {
         isActive = active;
     }
 
+    //A missing age is invalid too, bodies such as {"name":"x"} bind with null fields
     public boolean hasInvalidAge() {
-        return getAge() < MIN_VALID_AGE || getAge() > MAX_VALID_AGE;
+        return getAge() == null || getAge() < MIN_VALID_AGE || getAge() > MAX_VALID_AGE;
     }
 
     public Long getId() {
@@ -0,0 +1,196 @@
+package com.thoughtworks.springboot.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Filters, sort keys and projected fields of GET /employees/query, bound straight from the request
+ * parameters. Null filters do not filter; ranges are inclusive.
+ */
+public class EmployeeQuery {
+    private static final Map<String, Function<Employee, Comparable<?>>> SORT_KEYS = new LinkedHashMap<>();
+
+    static {
+        SORT_KEYS.put("id", Employee::getId);
+        SORT_KEYS.put("name", Employee::getName);
+        SORT_KEYS.put("age", Employee::getAge);
+        SORT_KEYS.put("gender", Employee::getGender);
+        SORT_KEYS.put("salary", Employee::getSalary);
+        SORT_KEYS.put("companyId", Employee::getCompanyId);
+    }
+
+    private Integer minAge;
+    private Integer maxAge;
+    private Integer minSalary;
+    private Integer maxSalary;
+    private String gender;
+    private Long companyId;
+    private Boolean active;
+    //Comma separated keys, a leading '-' sorts that key descending, e.g. "-salary,name"
+    private List<String> sort = Collections.emptyList();
+    private List<String> fields;
+    private Integer limit;
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(Integer minAge) {
+        this.minAge = minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public Integer getMinSalary() {
+        return minSalary;
+    }
+
+    public void setMinSalary(Integer minSalary) {
+        this.minSalary = minSalary;
+    }
+
+    public Integer getMaxSalary() {
+        return maxSalary;
+    }
+
+    public void setMaxSalary(Integer maxSalary) {
+        this.maxSalary = maxSalary;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public void setCompanyId(Long companyId) {
+        this.companyId = companyId;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    public List<String> getSort() {
+        return sort;
+    }
+
+    public void setSort(List<String> sort) {
+        this.sort = sort == null ? Collections.emptyList() : sort;
+    }
+
+    //Null returns whole employees
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public void validate() {
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            throw new IllegalArgumentException("minAge must not be greater than maxAge.");
+        }
+        if (minSalary != null && maxSalary != null && minSalary > maxSalary) {
+            throw new IllegalArgumentException("minSalary must not be greater than maxSalary.");
+        }
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("limit must be greater than zero.");
+        }
+        for (String key : sort) {
+            if (!SORT_KEYS.containsKey(stripDirection(key))) {
+                throw new IllegalArgumentException("Cannot sort by '" + key + "', expected one of " + SORT_KEYS.keySet() + ".");
+            }
+        }
+    }
+
+    public boolean hasIndexedFilter() {
+        return gender != null || active != null || minAge != null || maxAge != null;
+    }
+
+    //Bands overlapping the age range, null without an age bound. Bands are declared in age order
+    public Set<AgeBand> getAgeBands() {
+        if (minAge == null && maxAge == null) {
+            return null;
+        }
+        AgeBand[] bands = AgeBand.values();
+        AgeBand from = minAge == null ? bands[0] : AgeBand.of(minAge);
+        AgeBand to = maxAge == null ? bands[bands.length - 1] : AgeBand.of(maxAge);
+        return EnumSet.range(from, to);
+    }
+
+    //The full predicate, also applied to rows an index returned since bands and buckets are coarser than it
+    public boolean matches(Employee employee) {
+        if (gender != null) {
+            Gender expected = Gender.from(gender);
+            if (expected == null || expected != Gender.from(employee.getGender())) {
+                return false;
+            }
+        }
+        if (active != null && !active.equals(Boolean.TRUE.equals(employee.getIsActive()))) {
+            return false;
+        }
+        if (companyId != null && !companyId.equals(employee.getCompanyId())) {
+            return false;
+        }
+        return inRange(employee.getAge(), minAge, maxAge) && inRange(employee.getSalary(), minSalary, maxSalary);
+    }
+
+    private static boolean inRange(Integer value, Integer min, Integer max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        return value != null && (min == null || value >= min) && (max == null || value <= max);
+    }
+
+    //Nulls sort last in either direction, ties fall back to id so results are stable across pages
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Comparator<Employee> comparator() {
+        List<Comparator<Employee>> comparators = new ArrayList<>();
+        for (String key : sort) {
+            Function<Employee, Comparable> getter = (Function) SORT_KEYS.get(stripDirection(key));
+            Comparator<Comparable> order = key.startsWith("-") ? Comparator.reverseOrder() : Comparator.naturalOrder();
+            comparators.add(Comparator.comparing(getter, Comparator.nullsLast(order)));
+        }
+        return comparators.stream()
+                .reduce(Comparator::thenComparing)
+                .orElse((left, right) -> 0)
+                .thenComparing(Employee::getId);
+    }
+
+    private static String stripDirection(String key) {
+        return key.startsWith("-") || key.startsWith("+") ? key.substring(1) : key;
+    }
+}
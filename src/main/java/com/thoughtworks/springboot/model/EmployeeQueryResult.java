@@ -0,0 +1,30 @@
+package com.thoughtworks.springboot.model;
+
+import java.util.List;
+
+public class EmployeeQueryResult {
+    public enum Plan {
+        //Rows of one company through the company index
+        COMPANY_INDEX,
+        //AND of the gender, isActive and age band bitmaps
+        BITMAP_INDEX,
+        //No index applies, every row is tested, in parallel on large tables
+        PARALLEL_SCAN
+    }
+
+    private final Plan plan;
+    private final List<Employee> employees;
+
+    public EmployeeQueryResult(Plan plan, List<Employee> employees) {
+        this.plan = plan;
+        this.employees = employees;
+    }
+
+    public Plan getPlan() {
+        return plan;
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+}
@@ -0,0 +1,25 @@
+package com.thoughtworks.springboot.model;
+
+public class EmployeeStatisticsSummary {
+    private final Long count;
+    private final ColumnStatistics salary;
+    private final ColumnStatistics age;
+
+    public EmployeeStatisticsSummary(Long count, ColumnStatistics salary, ColumnStatistics age) {
+        this.count = count;
+        this.salary = salary;
+        this.age = age;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public ColumnStatistics getSalary() {
+        return salary;
+    }
+
+    public ColumnStatistics getAge() {
+        return age;
+    }
+}
@@ -0,0 +1,20 @@
+package com.thoughtworks.springboot.model;
+
+public enum EmployeeViolation {
+    NAME_MISSING("Name cannot be null or empty."),
+    AGE_NOT_POSITIVE("Age must be a positive integer."),
+    AGE_OUT_OF_RANGE("Employee must be 18-65"),
+    GENDER_INVALID("Gender must be 'Male' or 'Female'."),
+    SALARY_NOT_POSITIVE("Salary must be a positive number."),
+    COMPANY_UNKNOWN("Company does not exist.");
+
+    private final String message;
+
+    EmployeeViolation(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,19 @@
+package com.thoughtworks.springboot.model;
+
+public enum Gender {
+    MALE,
+    FEMALE;
+
+    //Case-insensitive lookup matching EmployeeValidator's rules, null when the value is not a valid gender
+    public static Gender from(String gender) {
+        if (gender == null) {
+            return null;
+        }
+        for (Gender value : values()) {
+            if (value.name().equalsIgnoreCase(gender)) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.thoughtworks.springboot.model;
+
+public class HistogramBucket {
+    private final Integer from;
+    private final Integer to;
+    private final Long count;
+
+    public HistogramBucket(Integer from, Integer to, Long count) {
+        this.from = from;
+        this.to = to;
+        this.count = count;
+    }
+
+    //Inclusive lower bound, null for the bucket collecting everything below the first boundary
+    public Integer getFrom() {
+        return from;
+    }
+
+    //Exclusive upper bound, null for the bucket collecting everything above the last boundary
+    public Integer getTo() {
+        return to;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.thoughtworks.springboot.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Every violation found on one employee. Violations are kept as bits, so recording them allocates
+ * nothing; messages are only built when a failure is reported. Call clear() to reuse the instance
+ * for the next employee, e.g. across the rows of a batch.
+ */
+public class ValidationResult {
+    private static final EmployeeViolation[] VIOLATIONS = EmployeeViolation.values();
+
+    private int violations;
+
+    public ValidationResult add(EmployeeViolation violation) {
+        violations |= 1 << violation.ordinal();
+        return this;
+    }
+
+    public boolean has(EmployeeViolation violation) {
+        return (violations & 1 << violation.ordinal()) != 0;
+    }
+
+    public boolean isValid() {
+        return violations == 0;
+    }
+
+    public ValidationResult clear() {
+        violations = 0;
+        return this;
+    }
+
+    public List<String> getViolations() {
+        List<String> messages = new ArrayList<>(Integer.bitCount(violations));
+        for (EmployeeViolation violation : VIOLATIONS) {
+            if (has(violation)) {
+                messages.add(violation.getMessage());
+            }
+        }
+        return messages;
+    }
+
+    public String getMessage() {
+        return String.join(" ", getViolations());
+    }
+}
@@ -0,0 +1,64 @@
+package com.thoughtworks.springboot.persistence;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Length-prefixed records: [payload length][crc32][type][sequence][payload]. The checksum covers
+ * type, sequence and payload so a torn write at the end of a segment is detected on replay.
+ */
+public class BinaryLogCodec implements LogCodec {
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Byte.BYTES + Long.BYTES;
+
+    @Override
+    public byte[] encode(LogRecord record) {
+        byte[] payload = record.getPayload();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length);
+        buffer.putInt(checksum((byte) record.getType().ordinal(), record.getSequence(), payload));
+        buffer.put((byte) record.getType().ordinal());
+        buffer.putLong(record.getSequence());
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    @Override
+    public LogRecord decode(DataInputStream input) throws IOException {
+        int length;
+        try {
+            length = input.readInt();
+        } catch (EOFException ex) {
+            return null;
+        }
+        try {
+            int expectedChecksum = input.readInt();
+            byte type = input.readByte();
+            long sequence = input.readLong();
+            if (length < 0 || type < 0 || type >= LogRecord.Type.values().length) {
+                throw new CorruptRecordException("Invalid record header at sequence " + sequence);
+            }
+            //Grows its buffer as bytes arrive, so a damaged length allocates no more than the segment holds
+            byte[] payload = input.readNBytes(length);
+            if (payload.length < length) {
+                throw new CorruptRecordException("Truncated record at end of segment");
+            }
+            if (checksum(type, sequence, payload) != expectedChecksum) {
+                throw new CorruptRecordException("Checksum mismatch at sequence " + sequence);
+            }
+            return new LogRecord(sequence, LogRecord.Type.values()[type], payload);
+        } catch (EOFException ex) {
+            throw new CorruptRecordException("Truncated record at end of segment");
+        }
+    }
+
+    private static int checksum(byte type, long sequence, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(sequence).array());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,24 @@
+package com.thoughtworks.springboot.persistence;
+
+import com.thoughtworks.springboot.model.Company;
+
+import java.io.IOException;
+
+public class CompanySnapshotCodec implements SnapshotRowCodec<Company> {
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    @Override
+    public void write(SnapshotOutput output, Company company) throws IOException {
+        output.putLong(company.getId());
+        output.putString(company.getName());
+        output.putLong(company.getVersion() == null ? NULL_LONG : company.getVersion());
+    }
+
+    @Override
+    public Company read(SnapshotInput input, int formatVersion) throws IOException {
+        Company company = new Company(input.getLong(), input.getString());
+        long version = formatVersion >= SnapshotStore.ENTITY_VERSION_SINCE ? input.getLong() : NULL_LONG;
+        company.setVersion(version == NULL_LONG ? null : version);
+        return company;
+    }
+}
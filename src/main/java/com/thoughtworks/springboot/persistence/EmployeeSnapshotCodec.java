@@ -0,0 +1,43 @@
+package com.thoughtworks.springboot.persistence;
+
+import com.thoughtworks.springboot.model.Employee;
+
+import java.io.IOException;
+
+public class EmployeeSnapshotCodec implements SnapshotRowCodec<Employee> {
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final byte NULL_BOOLEAN = -1;
+
+    @Override
+    public void write(SnapshotOutput output, Employee employee) throws IOException {
+        output.putLong(employee.getId());
+        output.putString(employee.getName());
+        output.putInt(employee.getAge() == null ? NULL_INT : employee.getAge());
+        output.putString(employee.getGender());
+        output.putInt(employee.getSalary() == null ? NULL_INT : employee.getSalary());
+        output.putByte(employee.getIsActive() == null ? NULL_BOOLEAN : (byte) (employee.getIsActive() ? 1 : 0));
+        output.putLong(employee.getCompanyId() == null ? NULL_LONG : employee.getCompanyId());
+        output.putLong(employee.getVersion() == null ? NULL_LONG : employee.getVersion());
+        output.putLong(employee.getInactiveSince() == null ? NULL_LONG : employee.getInactiveSince());
+    }
+
+    @Override
+    public Employee read(SnapshotInput input, int formatVersion) throws IOException {
+        long id = input.getLong();
+        String name = input.getString();
+        int age = input.getInt();
+        String gender = input.getString();
+        int salary = input.getInt();
+        byte isActive = input.getByte();
+        long companyId = input.getLong();
+        long version = formatVersion >= SnapshotStore.ENTITY_VERSION_SINCE ? input.getLong() : NULL_LONG;
+        long inactiveSince = formatVersion >= SnapshotStore.INACTIVE_SINCE_SINCE ? input.getLong() : NULL_LONG;
+        Employee employee = new Employee(id, name, age == NULL_INT ? null : age, gender, salary == NULL_INT ? null : salary);
+        employee.setIsActive(isActive == NULL_BOOLEAN ? null : isActive == 1);
+        employee.setCompanyId(companyId == NULL_LONG ? null : companyId);
+        employee.setVersion(version == NULL_LONG ? null : version);
+        employee.setInactiveSince(inactiveSince == NULL_LONG ? null : inactiveSince);
+        return employee;
+    }
+}
@@ -0,0 +1,54 @@
+package com.thoughtworks.springboot.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One human-readable JSON object per line: {"sequence":1,"type":"EMPLOYEE_PUT","payload":{...}}.
+ * A final line without its newline is a torn write and is reported as corrupt.
+ */
+public class JsonLogCodec implements LogCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonLogCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public byte[] encode(LogRecord record) {
+        String line = "{\"sequence\":" + record.getSequence()
+                + ",\"type\":\"" + record.getType().name()
+                + "\",\"payload\":" + new String(record.getPayload(), StandardCharsets.UTF_8)
+                + "}\n";
+        return line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public LogRecord decode(DataInputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int next;
+        while ((next = input.read()) != -1 && next != '\n') {
+            line.write(next);
+        }
+        if (next == -1) {
+            if (line.size() == 0) {
+                return null;
+            }
+            throw new CorruptRecordException("Truncated record at end of segment");
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line.toByteArray());
+            return new LogRecord(node.get("sequence").asLong(),
+                    LogRecord.Type.valueOf(node.get("type").asText()),
+                    objectMapper.writeValueAsBytes(node.get("payload")));
+        } catch (IOException | RuntimeException ex) {
+            throw new CorruptRecordException("Unreadable record: " + ex.getMessage());
+        }
+    }
+}
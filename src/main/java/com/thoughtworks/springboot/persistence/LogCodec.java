@@ -0,0 +1,18 @@
+package com.thoughtworks.springboot.persistence;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+public interface LogCodec {
+
+    byte[] encode(LogRecord record);
+
+    //Returns null at the end of the segment, throws CorruptRecordException for a torn or damaged record
+    LogRecord decode(DataInputStream input) throws IOException;
+
+    class CorruptRecordException extends IOException {
+        public CorruptRecordException(String message) {
+            super(message);
+        }
+    }
+}
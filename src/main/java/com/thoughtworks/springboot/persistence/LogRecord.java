@@ -0,0 +1,37 @@
+package com.thoughtworks.springboot.persistence;
+
+public class LogRecord {
+
+    public enum Type {
+        EMPLOYEE_PUT,
+        EMPLOYEES_CLEARED,
+        COMPANY_PUT,
+        COMPANY_DELETED,
+        //Appended last, the binary format stores the ordinal
+        EMPLOYEES_ARCHIVED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final byte[] payload;
+
+    public LogRecord(long sequence, Type type, byte[] payload) {
+        this.sequence = sequence;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    //Log sequence number, strictly increasing across segments and restarts
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    //UTF-8 JSON of the row written, of the id for deletions, or of the rows moved to the archive
+    public byte[] getPayload() {
+        return payload;
+    }
+}
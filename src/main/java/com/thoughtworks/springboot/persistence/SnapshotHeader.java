@@ -0,0 +1,26 @@
+package com.thoughtworks.springboot.persistence;
+
+public class SnapshotHeader {
+    private final long sequence;
+    private final long lastId;
+    private final long rowCount;
+
+    public SnapshotHeader(long sequence, long lastId, long rowCount) {
+        this.sequence = sequence;
+        this.lastId = lastId;
+        this.rowCount = rowCount;
+    }
+
+    //Write-ahead log sequence the snapshot is consistent with, replay resumes after it
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+}
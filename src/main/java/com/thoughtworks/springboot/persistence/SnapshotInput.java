@@ -0,0 +1,64 @@
+package com.thoughtworks.springboot.persistence;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a snapshot through memory-mapped windows of the file, so the operating system pages it in
+ * without copying through a heap buffer. A single mapping is capped at 2 GB, larger files are
+ * walked window by window.
+ */
+public class SnapshotInput {
+    private static final long WINDOW_BYTES = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    SnapshotInput(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        map(0L, 0);
+    }
+
+    public long getLong() throws IOException {
+        return ensureAvailable(Long.BYTES).getLong();
+    }
+
+    public int getInt() throws IOException {
+        return ensureAvailable(Integer.BYTES).getInt();
+    }
+
+    public byte getByte() throws IOException {
+        return ensureAvailable(Byte.BYTES).get();
+    }
+
+    public String getString() throws IOException {
+        int length = getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ensureAvailable(length).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private MappedByteBuffer ensureAvailable(int bytes) throws IOException {
+        if (window.remaining() < bytes) {
+            map(windowStart + window.position(), bytes);
+            if (window.remaining() < bytes) {
+                throw new LogCodec.CorruptRecordException("Snapshot ends in the middle of a row");
+            }
+        }
+        return window;
+    }
+
+    private void map(long position, int minimumBytes) throws IOException {
+        long size = Math.min(Math.max(WINDOW_BYTES, minimumBytes), fileSize - position);
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+}
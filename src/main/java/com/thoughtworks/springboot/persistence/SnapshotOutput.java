@@ -0,0 +1,60 @@
+package com.thoughtworks.springboot.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered writer of fixed-width primitives and length-prefixed strings onto a file channel.
+ */
+public class SnapshotOutput {
+    private static final int BUFFER_BYTES = 1024 * 1024;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    SnapshotOutput(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public void putLong(long value) throws IOException {
+        ensureCapacity(Long.BYTES).putLong(value);
+    }
+
+    public void putInt(int value) throws IOException {
+        ensureCapacity(Integer.BYTES).putInt(value);
+    }
+
+    public void putByte(byte value) throws IOException {
+        ensureCapacity(Byte.BYTES).put(value);
+    }
+
+    //Length prefixed UTF-8, a length of -1 stands for null
+    public void putString(String value) throws IOException {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes);
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private ByteBuffer ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocateDirect(bytes);
+            }
+        }
+        return buffer;
+    }
+}
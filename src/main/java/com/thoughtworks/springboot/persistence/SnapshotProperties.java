@@ -0,0 +1,48 @@
+package com.thoughtworks.springboot.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "persistence.snapshot")
+public class SnapshotProperties {
+
+    private boolean enabled = false;
+    private String directory = "data/snapshot";
+    private Duration interval = Duration.ofMinutes(5);
+    private int retained = 2;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public int getRetained() {
+        return retained;
+    }
+
+    public void setRetained(int retained) {
+        this.retained = retained;
+    }
+}
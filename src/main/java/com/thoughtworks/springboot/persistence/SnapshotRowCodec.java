@@ -0,0 +1,10 @@
+package com.thoughtworks.springboot.persistence;
+
+import java.io.IOException;
+
+public interface SnapshotRowCodec<T> {
+    void write(SnapshotOutput output, T row) throws IOException;
+
+    //formatVersion is the version of the file being read, older files lack the columns added since
+    T read(SnapshotInput input, int formatVersion) throws IOException;
+}
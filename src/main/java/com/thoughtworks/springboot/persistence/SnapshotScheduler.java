@@ -0,0 +1,33 @@
+package com.thoughtworks.springboot.persistence;
+
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import com.thoughtworks.springboot.repository.EmployeeRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically snapshots both repositories at one log checkpoint, then drops the log segments the
+ * snapshots cover so startup replay stays short.
+ */
+@Component
+@ConditionalOnProperty(prefix = "persistence.snapshot", name = "enabled", havingValue = "true")
+public class SnapshotScheduler {
+    private final WriteAheadLog writeAheadLog;
+    private final EmployeeRepository employeeRepository;
+    private final CompanyRepository companyRepository;
+
+    public SnapshotScheduler(WriteAheadLog writeAheadLog, EmployeeRepository employeeRepository, CompanyRepository companyRepository) {
+        this.writeAheadLog = writeAheadLog;
+        this.employeeRepository = employeeRepository;
+        this.companyRepository = companyRepository;
+    }
+
+    @Scheduled(initialDelayString = "${persistence.snapshot.interval:PT5M}", fixedDelayString = "${persistence.snapshot.interval:PT5M}")
+    public void snapshot() {
+        long sequence = writeAheadLog.checkpoint();
+        employeeRepository.writeSnapshot(sequence);
+        companyRepository.writeSnapshot(sequence);
+        writeAheadLog.deleteSegmentsUpTo(sequence);
+    }
+}
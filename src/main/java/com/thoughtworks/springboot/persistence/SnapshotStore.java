@@ -0,0 +1,158 @@
+package com.thoughtworks.springboot.persistence;
+
+import com.thoughtworks.springboot.exception.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compact binary images of a table, one file per table and checkpoint:
+ * [magic][version][log sequence][last id][row count][rows...]. Files are written under a temporary
+ * name, fsynced and renamed, so a reader only ever sees complete snapshots. On startup the newest
+ * one is mapped into memory and handed to the repository in batches, the log tail after its
+ * sequence is replayed on top.
+ */
+@Component
+public class SnapshotStore {
+    public static final String EMPLOYEES = "employees";
+    //Compacted employees; must not start with another table's name followed by a dash
+    public static final String ARCHIVED_EMPLOYEES = "archived-employees";
+    public static final String COMPANIES = "companies";
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+    private static final int MAGIC = 0x534E4150;
+    //Version 2 added the entity version column; version 1 files are still read, their rows get no version.
+    //Version 3 added the employee deactivation time
+    static final int ENTITY_VERSION_SINCE = 2;
+    static final int INACTIVE_SINCE_SINCE = 3;
+    private static final int VERSION = INACTIVE_SINCE_SINCE;
+    private static final int OLDEST_READABLE_VERSION = 1;
+    private static final long ROW_COUNT_OFFSET = Integer.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+    private static final int RESTORE_BATCH_SIZE = 8192;
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final SnapshotProperties properties;
+
+    public SnapshotStore(SnapshotProperties properties) {
+        this.properties = properties;
+    }
+
+    public static SnapshotStore disabled() {
+        return new SnapshotStore(new SnapshotProperties());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public <T> void write(String table, long sequence, long lastId, Stream<T> rows, SnapshotRowCodec<T> codec) {
+        Path directory = Paths.get(properties.getDirectory());
+        Path target = directory.resolve(String.format("%s-%020d%s", table, sequence, SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + TEMPORARY_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                SnapshotOutput output = new SnapshotOutput(channel);
+                output.putInt(MAGIC);
+                output.putInt(VERSION);
+                output.putLong(sequence);
+                output.putLong(lastId);
+                //Rows are streamed from a live table, the real count is patched in once they are all written
+                output.putLong(0L);
+                long rowCount = 0;
+                Iterator<T> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    codec.write(output, iterator.next());
+                    rowCount++;
+                }
+                output.flush();
+                ByteBuffer count = ByteBuffer.allocate(Long.BYTES).putLong(0, rowCount);
+                while (count.hasRemaining()) {
+                    channel.write(count, ROW_COUNT_OFFSET + count.position());
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new PersistenceException("Could not write " + table + " snapshot to " + directory, ex);
+        }
+        deleteOlderSnapshots(table);
+    }
+
+    //Returns null when there is no snapshot of the table, the caller then starts from seed data
+    public <T> SnapshotHeader restore(String table, SnapshotRowCodec<T> codec, Consumer<List<T>> batches) {
+        if (!isEnabled()) {
+            return null;
+        }
+        List<Path> snapshots = listSnapshots(table);
+        if (snapshots.isEmpty()) {
+            return null;
+        }
+        Path newest = snapshots.get(snapshots.size() - 1);
+        try (FileChannel channel = FileChannel.open(newest, StandardOpenOption.READ)) {
+            SnapshotInput input = new SnapshotInput(channel);
+            int formatVersion = input.getInt() == MAGIC ? input.getInt() : -1;
+            if (formatVersion < OLDEST_READABLE_VERSION || formatVersion > VERSION) {
+                throw new PersistenceException("Unrecognized snapshot file " + newest);
+            }
+            SnapshotHeader header = new SnapshotHeader(input.getLong(), input.getLong(), input.getLong());
+            List<T> batch = new ArrayList<>(RESTORE_BATCH_SIZE);
+            for (long row = 0; row < header.getRowCount(); row++) {
+                batch.add(codec.read(input, formatVersion));
+                if (batch.size() == RESTORE_BATCH_SIZE) {
+                    batches.accept(batch);
+                    batch = new ArrayList<>(RESTORE_BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.accept(batch);
+            }
+            return header;
+        } catch (IOException ex) {
+            throw new PersistenceException("Could not restore " + table + " snapshot " + newest, ex);
+        }
+    }
+
+    private void deleteOlderSnapshots(String table) {
+        List<Path> snapshots = listSnapshots(table);
+        for (int i = 0; i < snapshots.size() - properties.getRetained(); i++) {
+            try {
+                Files.deleteIfExists(snapshots.get(i));
+            } catch (IOException ex) {
+                log.warn("Could not delete snapshot {}", snapshots.get(i), ex);
+            }
+        }
+    }
+
+    private List<Path> listSnapshots(String table) {
+        Path directory = Paths.get(properties.getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().startsWith(table + "-"))
+                    .filter(path -> path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            throw new PersistenceException("Could not list snapshots in " + directory, ex);
+        }
+    }
+}
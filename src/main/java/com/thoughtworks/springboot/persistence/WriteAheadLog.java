@@ -0,0 +1,469 @@
+package com.thoughtworks.springboot.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.springboot.exception.PersistenceException;
+import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.model.Employee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of every repository mutation, replayed on startup to rebuild the in-memory tables.
+ * Writers only enqueue a record; a single writer thread drains the queue and writes each batch with
+ * one fsync (group commit), so many concurrent writers share the cost of one disk flush.
+ * Segments roll over at segmentSizeBytes and a restart always opens a fresh segment, so a torn
+ * record can only ever be the last one of a segment and is skipped on replay. Damage anywhere else
+ * fails the replay rather than skip to later segments.
+ * Repositories run each log-and-apply step through mutate, which lets checkpoint find a sequence
+ * below which every logged mutation is also visible in memory, the starting point of a snapshot.
+ */
+@Component
+public class WriteAheadLog {
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final WriteAheadLogProperties properties;
+    private final ObjectMapper objectMapper;
+    private final LogCodec codec;
+    private final BlockingQueue<LogRecord> pendingRecords = new LinkedBlockingQueue<>();
+    private final Object appendLock = new Object();
+    //A lock rather than a monitor: a virtual thread waiting in Object.wait would pin its carrier for a whole fsync
+    private final Lock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+    //Shared by mutations between logging and applying a change, taken exclusively by checkpoint
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private long lastSequence;
+    private long lastSequenceAtStart;
+    private long durableSequence;
+    private volatile boolean running;
+    private volatile IOException writeFailure;
+    private Thread writerThread;
+    private FileChannel segment;
+    private long segmentBytes;
+
+    public WriteAheadLog(WriteAheadLogProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.codec = properties.getFormat() == WriteAheadLogProperties.Format.JSON
+                ? new JsonLogCodec(objectMapper)
+                : new BinaryLogCodec();
+        if (properties.isEnabled()) {
+            start();
+        }
+    }
+
+    public static WriteAheadLog disabled() {
+        return new WriteAheadLog(new WriteAheadLogProperties(), new ObjectMapper());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public long logEmployee(Employee employee) {
+        return append(LogRecord.Type.EMPLOYEE_PUT, employee);
+    }
+
+    public long logEmployeesCleared() {
+        return append(LogRecord.Type.EMPLOYEES_CLEARED, null);
+    }
+
+    //Carries the whole rows, so replay can rebuild the archive even if no snapshot holds them
+    public long logEmployeesArchived(List<Employee> employees) {
+        return append(LogRecord.Type.EMPLOYEES_ARCHIVED, employees);
+    }
+
+    public long logCompany(Company company) {
+        return append(LogRecord.Type.COMPANY_PUT, company);
+    }
+
+    public long logCompanyDeleted(Long companyId) {
+        return append(LogRecord.Type.COMPANY_DELETED, companyId);
+    }
+
+    //Blocks until the record is on disk when the fsync policy is ALWAYS, returns immediately otherwise
+    public void awaitDurable(long sequence) {
+        if (!isEnabled() || properties.getFsyncPolicy() != WriteAheadLogProperties.FsyncPolicy.ALWAYS) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (writeFailure != null) {
+                    throw new PersistenceException("Write-ahead log is not writable", writeFailure);
+                }
+                try {
+                    durableAdvanced.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new PersistenceException("Interrupted while waiting for the write-ahead log", ex);
+                }
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    //Runs a mutation that logs a record and applies it in memory, so checkpoint never sees one half of it.
+    //Once the log has failed, mutations are rejected before they change anything in memory
+    public <T> T mutate(Supplier<T> mutation) {
+        if (!isEnabled()) {
+            return mutation.get();
+        }
+        rejectIfFailed();
+        checkpointLock.readLock().lock();
+        try {
+            return mutation.get();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    //Every record up to the returned sequence has been applied in memory, later ones may or may not be
+    public long checkpoint() {
+        if (!isEnabled()) {
+            return 0L;
+        }
+        checkpointLock.writeLock().lock();
+        try {
+            synchronized (appendLock) {
+                return lastSequence;
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    public void replay(ReplayHandler handler) {
+        replay(0L, handler);
+    }
+
+    public void replay(long afterSequence, ReplayHandler handler) {
+        if (!isEnabled()) {
+            return;
+        }
+        readSegments(afterSequence, record -> {
+            if (record.getSequence() > afterSequence) {
+                dispatch(record, handler);
+            }
+        });
+    }
+
+    //Deletes segments that only hold records up to the sequence, once a snapshot covers them
+    public void deleteSegmentsUpTo(long sequence) {
+        List<Path> segments = listSegments();
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSequence(segments.get(i + 1)) > sequence + 1) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segments.get(i));
+            } catch (IOException ex) {
+                log.warn("Could not delete write-ahead log segment {}", segments.get(i), ex);
+                return;
+            }
+        }
+    }
+
+    private void readSegments(long afterSequence, RecordConsumer consumer) {
+        List<Path> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            //A segment is entirely covered when the next one starts right after the requested sequence
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+            Long damagedAfter = readSegment(segments.get(i), consumer);
+            //A restart resumes right after the last readable record, so a torn tail is followed by a segment
+            //starting there; any other next segment means records past the damage were lost, not torn
+            if (damagedAfter != null && i + 1 < segments.size() && firstSequence(segments.get(i + 1)) != damagedAfter + 1) {
+                throw new PersistenceException("Write-ahead log segment " + segments.get(i) + " is damaged after sequence "
+                        + damagedAfter + ", but the next segment starts at " + firstSequence(segments.get(i + 1)));
+            }
+        }
+    }
+
+    //Returns the sequence of the last readable record when a damaged one stops the read, null when it reaches the end
+    private Long readSegment(Path segmentPath, RecordConsumer consumer) {
+        long lastRead = firstSequence(segmentPath) - 1;
+        try (InputStream file = Files.newInputStream(segmentPath);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(file, 64 * 1024))) {
+            LogRecord record;
+            while ((record = codec.decode(input)) != null) {
+                consumer.accept(record);
+                lastRead = record.getSequence();
+            }
+            return null;
+        } catch (LogCodec.CorruptRecordException ex) {
+            log.warn("Stopped replaying {} at a damaged record: {}", segmentPath, ex.getMessage());
+            return lastRead;
+        } catch (IOException ex) {
+            throw new PersistenceException("Could not replay write-ahead log segment " + segmentPath, ex);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            segment.force(false);
+            segment.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            log.warn("Could not close write-ahead log segment", ex);
+        }
+    }
+
+    private long append(LogRecord.Type type, Object payload) {
+        if (!isEnabled()) {
+            return 0L;
+        }
+        rejectIfFailed();
+        byte[] bytes = toJson(payload);
+        //Sequence numbers must reach the queue in order, hence the lock around both steps
+        synchronized (appendLock) {
+            //Checked again under the lock, so nothing is queued after the writer has given up and drained the queue
+            rejectIfFailed();
+            long sequence = ++lastSequence;
+            pendingRecords.add(new LogRecord(sequence, type, bytes));
+            return sequence;
+        }
+    }
+
+    //The writer thread has stopped, anything accepted now would be acknowledged but never reach disk
+    private void rejectIfFailed() {
+        if (writeFailure != null) {
+            throw new PersistenceException("Write-ahead log is not writable", writeFailure);
+        }
+    }
+
+    private void start() {
+        try {
+            Files.createDirectories(Paths.get(properties.getDirectory()));
+            lastSequence = findLastSequence();
+            lastSequenceAtStart = lastSequence;
+            durableSequence = lastSequence;
+            openSegment(lastSequence + 1);
+        } catch (IOException ex) {
+            throw new PersistenceException("Could not open write-ahead log in " + properties.getDirectory(), ex);
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "wal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    private void writeLoop() {
+        List<LogRecord> batch = new ArrayList<>(properties.getGroupCommitMaxRecords());
+        long lastFsyncNanos = System.nanoTime();
+        long writtenSequence = lastSequenceAtStart;
+        while (running || !pendingRecords.isEmpty()) {
+            try {
+                LogRecord first = pendingRecords.poll(properties.getFsyncInterval().toMillis(), TimeUnit.MILLISECONDS);
+                batch.clear();
+                if (first != null) {
+                    batch.add(first);
+                    pendingRecords.drainTo(batch, properties.getGroupCommitMaxRecords() - 1);
+                    for (LogRecord record : batch) {
+                        write(record);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    writtenSequence = batch.get(batch.size() - 1).getSequence();
+                }
+                if (shouldFsync(!batch.isEmpty(), lastFsyncNanos)) {
+                    segment.force(false);
+                    lastFsyncNanos = System.nanoTime();
+                }
+                markDurable(writtenSequence);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException ex) {
+                log.error("Write-ahead log write failed, further writes will be rejected", ex);
+                synchronized (appendLock) {
+                    writeFailure = ex;
+                    pendingRecords.clear();
+                }
+                durableLock.lock();
+                try {
+                    durableAdvanced.signalAll();
+                } finally {
+                    durableLock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean shouldFsync(boolean wroteRecords, long lastFsyncNanos) {
+        switch (properties.getFsyncPolicy()) {
+            case ALWAYS:
+                return wroteRecords;
+            case INTERVAL:
+                return System.nanoTime() - lastFsyncNanos >= properties.getFsyncInterval().toNanos();
+            default:
+                return false;
+        }
+    }
+
+    private void markDurable(long sequence) {
+        durableLock.lock();
+        try {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+                durableAdvanced.signalAll();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void write(LogRecord record) throws IOException {
+        byte[] bytes = codec.encode(record);
+        if (segmentBytes > 0 && segmentBytes + bytes.length > properties.getSegmentSizeBytes()) {
+            segment.force(false);
+            segment.close();
+            openSegment(record.getSequence());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+        segmentBytes += bytes.length;
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = Paths.get(properties.getDirectory(), String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        //A leftover file with this name can only hold a torn record, every readable one would be below firstSequence
+        segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segmentBytes = 0;
+    }
+
+    //Segments are named after their first sequence, so only the newest one has to be read
+    private long findLastSequence() {
+        List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            return 0L;
+        }
+        Path newest = segments.get(segments.size() - 1);
+        long[] last = {firstSequence(newest) - 1};
+        readSegment(newest, record -> last[0] = Math.max(last[0], record.getSequence()));
+        return last[0];
+    }
+
+    private List<Path> listSegments() {
+        Path directory = Paths.get(properties.getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            throw new PersistenceException("Could not list write-ahead log segments in " + directory, ex);
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void dispatch(LogRecord record, ReplayHandler handler) throws IOException {
+        switch (record.getType()) {
+            case EMPLOYEE_PUT:
+                handler.onEmployee(objectMapper.readValue(record.getPayload(), Employee.class));
+                break;
+            case EMPLOYEES_CLEARED:
+                handler.onEmployeesCleared();
+                break;
+            case COMPANY_PUT:
+                JsonNode company = objectMapper.readTree(record.getPayload());
+                Company replayedCompany = new Company(company.get("id").asLong(), company.get("name").asText());
+                if (company.hasNonNull("version")) {
+                    replayedCompany.setVersion(company.get("version").asLong());
+                }
+                handler.onCompany(replayedCompany);
+                break;
+            case COMPANY_DELETED:
+                handler.onCompanyDeleted(objectMapper.readTree(record.getPayload()).asLong());
+                break;
+            case EMPLOYEES_ARCHIVED:
+                handler.onEmployeesArchived(Arrays.asList(objectMapper.readValue(record.getPayload(), Employee[].class)));
+                break;
+            default:
+                throw new LogCodec.CorruptRecordException("Unknown record type " + record.getType());
+        }
+    }
+
+    private byte[] toJson(Object payload) {
+        try {
+            return payload == null ? "null".getBytes(StandardCharsets.UTF_8) : objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException ex) {
+            throw new PersistenceException("Could not serialize write-ahead log record", ex);
+        }
+    }
+
+    private interface RecordConsumer {
+        void accept(LogRecord record) throws IOException;
+    }
+
+    /**
+     * Receives replayed mutations in log order. Repositories override the callbacks for their tables.
+     */
+    public interface ReplayHandler {
+        default void onEmployee(Employee employee) {
+        }
+
+        default void onEmployeesCleared() {
+        }
+
+        default void onEmployeesArchived(List<Employee> employees) {
+        }
+
+        default void onCompany(Company company) {
+        }
+
+        default void onCompanyDeleted(Long companyId) {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.thoughtworks.springboot.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "persistence.wal")
+public class WriteAheadLogProperties {
+
+    public enum Format {
+        BINARY,
+        JSON
+    }
+
+    public enum FsyncPolicy {
+        //Writers wait until their group commit has been fsynced
+        ALWAYS,
+        //Writers return once queued, the log is fsynced at most once per fsyncInterval
+        INTERVAL,
+        //Never fsync explicitly, leave it to the operating system
+        NEVER
+    }
+
+    private boolean enabled = false;
+    private String directory = "data/wal";
+    private Format format = Format.BINARY;
+    private long segmentSizeBytes = 64L * 1024 * 1024;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.ALWAYS;
+    private Duration fsyncInterval = Duration.ofMillis(100);
+    private int groupCommitMaxRecords = 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public long getSegmentSizeBytes() {
+        return segmentSizeBytes;
+    }
+
+    public void setSegmentSizeBytes(long segmentSizeBytes) {
+        this.segmentSizeBytes = segmentSizeBytes;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public Duration getFsyncInterval() {
+        return fsyncInterval;
+    }
+
+    public void setFsyncInterval(Duration fsyncInterval) {
+        this.fsyncInterval = fsyncInterval;
+    }
+
+    public int getGroupCommitMaxRecords() {
+        return groupCommitMaxRecords;
+    }
+
+    public void setGroupCommitMaxRecords(int groupCommitMaxRecords) {
+        this.groupCommitMaxRecords = groupCommitMaxRecords;
+    }
+}
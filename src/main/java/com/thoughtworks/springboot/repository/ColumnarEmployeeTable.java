@@ -0,0 +1,352 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.CursorPage;
+import com.thoughtworks.springboot.model.Employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Column-oriented employee storage. Each column is a primitive array indexed by employee id, so a row
+ * costs a few bytes per field instead of an Employee object plus its boxed fields and map entries.
+ * Employee objects are only built as detached views when a row is read; writing to a view has no
+ * effect until it is put back. Ids are dense thanks to IdGenerator, which keeps the arrays compact.
+ */
+public class ColumnarEmployeeTable implements Table<Employee> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final byte GENDER_NULL = 0;
+    private static final byte GENDER_MALE = 1;
+    private static final byte GENDER_FEMALE = 2;
+    private static final byte GENDER_OTHER = 3;
+    private static final String MALE = "Male";
+    private static final String FEMALE = "Female";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet present = new BitSet();
+    private final BitSet active = new BitSet();
+    private final BitSet hasCompany = new BitSet();
+    //Spellings other than the canonical "Male"/"Female" are rare, keep them out of the hot columns
+    private final Map<Integer, String> otherGenders = new HashMap<>();
+    //Only inactive rows have a deactivation time, so it stays out of the columns too
+    private final Map<Integer, Long> inactiveSince = new HashMap<>();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private int[] salaries = new int[INITIAL_CAPACITY];
+    private long[] companyIds = new long[INITIAL_CAPACITY];
+    private byte[] genders = new byte[INITIAL_CAPACITY];
+    //Versions start at 1, so 0 marks a row stored without one
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private int size;
+
+    @Override
+    public Employee get(Long id) {
+        if (!isAddressable(id)) {
+            return null;
+        }
+        int slot = id.intValue();
+        lock.readLock().lock();
+        try {
+            return present.get(slot) ? view(slot) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Employee put(Employee employee) {
+        int slot = toSlot(employee.getId());
+        lock.writeLock().lock();
+        try {
+            Employee previous = present.get(slot) ? view(slot) : null;
+            write(slot, employee);
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putAll(List<Employee> employees) {
+        lock.writeLock().lock();
+        try {
+            employees.forEach(employee -> write(toSlot(employee.getId()), employee));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Employee computeIfPresent(Long id, UnaryOperator<Employee> update) {
+        if (!isAddressable(id)) {
+            return null;
+        }
+        int slot = toSlot(id);
+        lock.writeLock().lock();
+        try {
+            if (!present.get(slot)) {
+                return null;
+            }
+            Employee updated = update.apply(view(slot));
+            if (updated == null) {
+                clearSlot(slot);
+            } else {
+                write(slot, updated);
+            }
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Views have no identity, so a row still counts as expected while its version is unchanged;
+    //EmployeeRepository bumps the version on every update. Rows stored without a version match a view without one
+    @Override
+    public boolean replace(Employee expected, Employee next) {
+        if (!isAddressable(next.getId())) {
+            return false;
+        }
+        int slot = toSlot(next.getId());
+        lock.writeLock().lock();
+        try {
+            if (!present.get(slot) || versions[slot] != storedVersion(expected)) {
+                return false;
+            }
+            write(slot, next);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Employee remove(Long id) {
+        if (!isAddressable(id)) {
+            return null;
+        }
+        int slot = toSlot(id);
+        lock.writeLock().lock();
+        try {
+            if (!present.get(slot)) {
+                return null;
+            }
+            Employee removed = view(slot);
+            clearSlot(slot);
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Same version check as replace
+    @Override
+    public boolean remove(Employee expected) {
+        if (!isAddressable(expected.getId())) {
+            return false;
+        }
+        int slot = toSlot(expected.getId());
+        lock.writeLock().lock();
+        try {
+            if (!present.get(slot) || versions[slot] != storedVersion(expected)) {
+                return false;
+            }
+            clearSlot(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Walks a copy of the presence bitmap, each row is materialized on demand under its own read lock
+    @Override
+    public Stream<Employee> stream() {
+        BitSet slots;
+        lock.readLock().lock();
+        try {
+            slots = (BitSet) present.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return slots.stream()
+                .mapToObj(slot -> get((long) slot))
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public CursorPage<Employee> pageAfter(Long afterId, int limit) {
+        //Like the object table, a cursor below every id starts at the first row and one past every slot is the end
+        if (afterId != null && afterId >= Integer.MAX_VALUE) {
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+        int fromSlot = afterId == null || afterId < 0 ? 0 : (int) (afterId + 1);
+        List<Employee> page = new ArrayList<>(Math.min(limit, 1024));
+        lock.readLock().lock();
+        try {
+            int slot = present.nextSetBit(fromSlot);
+            while (slot >= 0 && page.size() < limit) {
+                page.add(view(slot));
+                slot = present.nextSetBit(slot + 1);
+            }
+            Long nextCursor = slot >= 0 && !page.isEmpty() ? page.get(page.size() - 1).getId() : null;
+            return new CursorPage<>(page, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            present.clear();
+            active.clear();
+            hasCompany.clear();
+            otherGenders.clear();
+            inactiveSince.clear();
+            names = new String[INITIAL_CAPACITY];
+            ages = new int[INITIAL_CAPACITY];
+            salaries = new int[INITIAL_CAPACITY];
+            companyIds = new long[INITIAL_CAPACITY];
+            genders = new byte[INITIAL_CAPACITY];
+            versions = new long[INITIAL_CAPACITY];
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Lengths of the per-row column arrays, which are always resized together
+    int[] columnLengths() {
+        lock.readLock().lock();
+        try {
+            return new int[]{names.length, ages.length, salaries.length, companyIds.length, genders.length, versions.length};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Employee view(int slot) {
+        Employee employee = new Employee((long) slot, names[slot], fromColumn(ages[slot]), readGender(slot), fromColumn(salaries[slot]));
+        employee.setIsActive(active.get(slot));
+        employee.setCompanyId(hasCompany.get(slot) ? companyIds[slot] : null);
+        employee.setVersion(versions[slot] == 0L ? null : versions[slot]);
+        employee.setInactiveSince(inactiveSince.get(slot));
+        return employee;
+    }
+
+    private void write(int slot, Employee employee) {
+        ensureCapacity(slot);
+        if (!present.get(slot)) {
+            present.set(slot);
+            size++;
+        }
+        names[slot] = employee.getName();
+        ages[slot] = toColumn(employee.getAge());
+        salaries[slot] = toColumn(employee.getSalary());
+        writeGender(slot, employee.getGender());
+        active.set(slot, Boolean.TRUE.equals(employee.getIsActive()));
+        hasCompany.set(slot, employee.getCompanyId() != null);
+        companyIds[slot] = employee.getCompanyId() == null ? 0L : employee.getCompanyId();
+        versions[slot] = storedVersion(employee);
+        if (employee.getInactiveSince() == null) {
+            inactiveSince.remove(slot);
+        } else {
+            inactiveSince.put(slot, employee.getInactiveSince());
+        }
+    }
+
+    //Missing versions are stored as 0, which no versioned row ever has
+    private static long storedVersion(Employee employee) {
+        return employee.getVersion() == null ? 0L : employee.getVersion();
+    }
+
+    private void clearSlot(int slot) {
+        present.clear(slot);
+        active.clear(slot);
+        hasCompany.clear(slot);
+        otherGenders.remove(slot);
+        inactiveSince.remove(slot);
+        names[slot] = null;
+        size--;
+    }
+
+    private String readGender(int slot) {
+        switch (genders[slot]) {
+            case GENDER_MALE:
+                return MALE;
+            case GENDER_FEMALE:
+                return FEMALE;
+            case GENDER_OTHER:
+                return otherGenders.get(slot);
+            default:
+                return null;
+        }
+    }
+
+    private void writeGender(int slot, String gender) {
+        otherGenders.remove(slot);
+        if (gender == null) {
+            genders[slot] = GENDER_NULL;
+        } else if (MALE.equals(gender)) {
+            genders[slot] = GENDER_MALE;
+        } else if (FEMALE.equals(gender)) {
+            genders[slot] = GENDER_FEMALE;
+        } else {
+            genders[slot] = GENDER_OTHER;
+            otherGenders.put(slot, gender);
+        }
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < names.length) {
+            return;
+        }
+        int capacity = Math.max(slot + 1, names.length + (names.length >> 1));
+        names = Arrays.copyOf(names, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        salaries = Arrays.copyOf(salaries, capacity);
+        companyIds = Arrays.copyOf(companyIds, capacity);
+        genders = Arrays.copyOf(genders, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+    }
+
+    private static int toColumn(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    private static Integer fromColumn(int value) {
+        return value == NULL_INT ? null : value;
+    }
+
+    //Reads and removals treat an id no slot can hold as absent, only writes reject it
+    private static boolean isAddressable(Long id) {
+        return id != null && id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    private static int toSlot(Long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Columnar storage requires non-negative ids.");
+        }
+        return Math.toIntExact(id);
+    }
+}
@@ -2,53 +2,157 @@ package com.thoughtworks.springboot.repository;
 
 import com.thoughtworks.springboot.exception.CompanyNotFoundException;
 import com.thoughtworks.springboot.exception.CompanyValidationException;
+import com.thoughtworks.springboot.exception.VersionConflictException;
+import com.thoughtworks.springboot.metrics.MetricsConfiguration;
 import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.model.CursorPage;
 import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeStatisticsSummary;
+import com.thoughtworks.springboot.persistence.CompanySnapshotCodec;
+import com.thoughtworks.springboot.persistence.SnapshotHeader;
+import com.thoughtworks.springboot.persistence.SnapshotStore;
+import com.thoughtworks.springboot.persistence.WriteAheadLog;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Repository
 public class CompanyRepository {
+    private static final long INITIAL_VERSION = 1L;
+
+    private final InMemoryTable<Company> companies = new InMemoryTable<>(Company::getId);
+    private final NameSearchIndex nameIndex = new NameSearchIndex();
+    //Employees live only in EmployeeRepository, company queries join against its table
+    private final EmployeeRepository employeeRepository;
+    private final IdGenerator idGenerator = new IdGenerator();
+    private final WriteAheadLog writeAheadLog;
+    private final SnapshotStore snapshotStore;
+
+    public CompanyRepository() {
+        this(WriteAheadLog.disabled());
+    }
+
+    public CompanyRepository(WriteAheadLog writeAheadLog) {
+        this(writeAheadLog, SnapshotStore.disabled());
+    }
+
+    public CompanyRepository(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore) {
+        this(new EmployeeRepository(), writeAheadLog, snapshotStore);
+    }
+
+    @Autowired
+    public CompanyRepository(EmployeeRepository employeeRepository, WriteAheadLog writeAheadLog, SnapshotStore snapshotStore) {
+        this.employeeRepository = employeeRepository;
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = snapshotStore;
+        SnapshotHeader snapshot = snapshotStore.restore(SnapshotStore.COMPANIES, new CompanySnapshotCodec(), restored -> {
+            restored.forEach(CompanyRepository::withInitialVersion);
+            companies.putAll(restored);
+        });
+        if (snapshot == null) {
+            companies.put(newCompany(1L, "OOCL"));
+            companies.put(newCompany(2L, "Thoughtworks"));
+            companies.put(newCompany(3L, "COSCO"));
+            companies.put(newCompany(4L, "DoubleDragon"));
+            companies.put(newCompany(5L, "Scape"));
+        } else {
+            idGenerator.advanceTo(snapshot.getLastId());
+        }
+        companies.stream().forEach(company -> {
+            idGenerator.advanceTo(company.getId());
+            nameIndex.add(company.getName(), company.getId());
+        });
+        writeAheadLog.replay(snapshot == null ? 0L : snapshot.getSequence(), new WriteAheadLog.ReplayHandler() {
+            @Override
+            public void onCompany(Company company) {
+                Company previous = companies.put(withInitialVersion(company));
+                nameIndex.move(previous == null ? null : previous.getName(), company.getName(), company.getId());
+                idGenerator.advanceTo(company.getId());
+            }
+
+            @Override
+            public void onCompanyDeleted(Long companyId) {
+                Company removed = companies.remove(companyId);
+                if (removed != null) {
+                    nameIndex.remove(removed.getName(), companyId);
+                }
+            }
+        });
+    }
 
-    private static final List<Company> companies = new ArrayList<>();
-    private static final List<Employee> employees = new ArrayList<>();
-    private static final Map<Long, Long> employeeCompanyMap = new HashMap<>();
-
-    static {
-        companies.add(new Company(1L, "OOCL"));
-        companies.add(new Company(2L, "Thoughtworks"));
-        companies.add(new Company(3L, "COSCO"));
-        companies.add(new Company(4L, "DoubleDragon"));
-        companies.add(new Company(5L, "Scape"));
-        employees.add(new Employee(1L, "Ilnear", 42, "Male", 10000));
-        employees.add(new Employee(2L, "Ilfar", 42, "Female", 20000));
-        employees.add(new Employee(3L, "Ilclose", 42, "Male", 3000));
-        employees.add(new Employee(4L, "Ilalmostthere", 42, "Female", 5000));
-        employees.add(new Employee(5L, "Ilfaraway", 42, "Male", 14500));
-        employeeCompanyMap.put(1L, 1L);
-        employeeCompanyMap.put(2L, 1L);
-        employeeCompanyMap.put(3L, 1L);
-        employeeCompanyMap.put(4L, 2L);
-        employeeCompanyMap.put(5L, 3L);
+    private static Company newCompany(Long id, String name) {
+        Company company = new Company(id, name);
+        company.setVersion(INITIAL_VERSION);
+        return company;
+    }
+
+    //Companies from version 1 snapshots and older log records carry no version, they count as new ones
+    private static Company withInitialVersion(Company company) {
+        if (company.getVersion() == null) {
+            company.setVersion(INITIAL_VERSION);
+        }
+        return company;
     }
 
 
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public List<Company> listAll() {
-        return companies;
+        return companies.snapshot();
     }
 
+    //Access paths of the reactive API, lazy walks that emit rows only as the subscriber requests them
+    public Flux<Company> listAllReactive() {
+        return Flux.fromStream(companies::stream);
+    }
+
+    public Mono<Company> findByIdReactive(Long id) {
+        return Mono.fromSupplier(() -> companies.get(id))
+                .switchIfEmpty(Mono.error(CompanyNotFoundException::new));
+    }
+
+    public Flux<Company> listByPageReactive(Long pageNumber, Long pageSize) {
+        if (pageNumber <= 0 || pageSize <= 0) {
+            return Flux.error(new IllegalArgumentException("Page number and page size must be greater than zero."));
+        }
+        return Flux.fromStream(() -> companies.stream()
+                .skip((pageNumber - 1) * pageSize)
+                .limit(pageSize));
+    }
+
+    //Same existence check as getEmployeesByCompanyId, made on subscription
+    public Flux<Employee> getEmployeesByCompanyIdReactive(Long companyId) {
+        return findByIdReactive(companyId)
+                .flatMapMany(company -> employeeRepository.findByCompanyIdReactive(companyId));
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public Company findById(Long id) {
-        return companies.stream()
-                .filter(company -> company.getId().equals(id))
-                .findFirst()
-                .orElseThrow(CompanyNotFoundException::new);
+        Company company = companies.get(id);
+        if (company == null) {
+            throw new CompanyNotFoundException();
+        }
+        return company;
     }
 
+    public boolean exists(Long id) {
+        return companies.get(id) != null;
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public List<Company> searchByName(String query, int limit) {
+        return nameIndex.search(query, limit).stream()
+                .map(companies::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public List<Company> listByPage(Long pageNumber, Long pageSize) {
         return companies.stream()
                 .skip((pageNumber - 1) * pageSize)
@@ -56,18 +160,41 @@ public class CompanyRepository {
                 .collect(Collectors.toList());
     }
 
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public CursorPage<Company> listAfter(Long afterId, Integer limit) {
+        return companies.pageAfter(afterId, limit);
+    }
+
+    public int size() {
+        return companies.size();
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public List<Employee> getEmployeesByCompanyId(Long companyId) {
-        return employees.stream()
-                .filter(employee -> employeeCompanyMap.containsValue(companyId) && employeeCompanyMap.get(employee.getId()).equals(companyId))
-                .collect(Collectors.toList());
+        //A deleted company 404s at once, even while its employees are still being detached
+        findById(companyId);
+        return employeeRepository.findByCompanyId(companyId);
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public EmployeeStatisticsSummary getEmployeeStatisticsByCompanyId(Long companyId) {
+        findById(companyId);
+        return employeeRepository.getStatisticsByCompanyId(companyId);
     }
 
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public Company addCompany(Company company) {
-        Long id = generateNextId();
         validateCompanyName(company.getName());
-
-        Company newCompany = new Company(id, company.getName());
-        companies.add(newCompany);
+        Long id = idGenerator.nextId();
+
+        Company newCompany = newCompany(id, company.getName());
+        long sequence = writeAheadLog.mutate(() -> {
+            long logged = writeAheadLog.logCompany(newCompany);
+            companies.put(newCompany);
+            nameIndex.add(newCompany.getName(), id);
+            return logged;
+        });
+        writeAheadLog.awaitDurable(sequence);
         return newCompany;
     }
 
@@ -78,41 +205,49 @@ public class CompanyRepository {
         }
     }
 
-    private Long generateNextId() {
-        //TODO local variables should be camel case, global contstant variables are upper case
-        long STARTING_ID_MINUS_ONE = 0;
-        return companies.stream()
-                .mapToLong(Company::getId)
-                .max()
-                .orElse(STARTING_ID_MINUS_ONE) + 1;
-    }
-
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public Company updateCompanyById(Long id, Company updatedCompany) {
-        Company companyToUpdate = companies.stream()
-                .filter(company -> company.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return updateCompanyById(id, updatedCompany, null);
+    }
 
+    //A non-null expectedVersion turns the update into a compare-and-set against the stored version
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public Company updateCompanyById(Long id, Company updatedCompany, Long expectedVersion) {
         //TODO Handle Business Logic and Validation in service, reference day8-Spring Boot.pdf page 8
-        if (companyToUpdate != null) {
-            companyToUpdate.setName(updatedCompany.getName());
-            return companyToUpdate;
-        }
-
-        return null;
+        long[] sequence = new long[1];
+        Company company = writeAheadLog.mutate(() -> companies.computeIfPresent(id, existingCompany -> {
+            if (expectedVersion != null && !expectedVersion.equals(existingCompany.getVersion())) {
+                throw new VersionConflictException("Company " + id + " is at version " + existingCompany.getVersion() + ", not " + expectedVersion + ".");
+            }
+            //Swapped in as a new copy so readers holding the old row never see it change
+            Company renamedCompany = new Company(id, updatedCompany.getName());
+            renamedCompany.setVersion(existingCompany.getVersion() == null ? INITIAL_VERSION + 1 : existingCompany.getVersion() + 1);
+            sequence[0] = writeAheadLog.logCompany(renamedCompany);
+            //Inside the row's compute, so racing renames reach the index in the order they reach the table
+            nameIndex.move(existingCompany.getName(), renamedCompany.getName(), id);
+            return renamedCompany;
+        }));
+        writeAheadLog.awaitDurable(sequence[0]);
+        return company;
     }
 
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public void deleteCompanyById(Long id) {
-        Company companyToDelete = companies.stream()
-                .filter(company -> company.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        long sequence = writeAheadLog.mutate(() -> {
+            Company companyToDelete = companies.remove(id);
+
+            //TODO Handle Business Logic and Validation in service, reference day8-Spring Boot.pdf page 8
+            if (companyToDelete == null) {
+                throw new CompanyNotFoundException("Company not found with id: " + id);
+            }
+            nameIndex.remove(companyToDelete.getName(), id);
+            return writeAheadLog.logCompanyDeleted(id);
+        });
+        writeAheadLog.awaitDurable(sequence);
+    }
 
-        //TODO Handle Business Logic and Validation in service, reference day8-Spring Boot.pdf page 8
-        if (companyToDelete != null) {
-            companies.remove(companyToDelete);
-        } else {
-            throw new CompanyNotFoundException("Company not found with id: " + id);
-        }
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public void writeSnapshot(long checkpointSequence) {
+        snapshotStore.write(SnapshotStore.COMPANIES, checkpointSequence, idGenerator.lastId(), companies.stream(), new CompanySnapshotCodec());
     }
 }
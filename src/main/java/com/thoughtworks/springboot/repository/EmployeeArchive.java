@@ -0,0 +1,177 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.Employee;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage for compacted employees. Each compaction run seals its rows into one immutable segment:
+ * the rows encoded back to back in a byte array, plus a sorted id column pointing at their offsets.
+ * An archived row costs its encoded bytes instead of an Employee object, its boxed fields and its index
+ * entries, and is only decoded when read. Readers walk an immutable list of segments and never block.
+ */
+public class EmployeeArchive {
+    //Each lookup probes every segment, past this many they are folded into one
+    private static final int MAX_SEGMENTS = 16;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final byte NULL_BOOLEAN = -1;
+
+    private volatile List<Segment> segments = Collections.emptyList();
+
+    public synchronized void append(List<Employee> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Segment> next = new ArrayList<>(segments);
+        next.add(Segment.of(rows));
+        if (next.size() > MAX_SEGMENTS) {
+            next = Collections.singletonList(Segment.of(next.stream().flatMap(Segment::stream).collect(Collectors.toList())));
+        }
+        segments = Collections.unmodifiableList(next);
+    }
+
+    public Employee get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        for (Segment segment : segments) {
+            Employee employee = segment.get(id);
+            if (employee != null) {
+                return employee;
+            }
+        }
+        return null;
+    }
+
+    public boolean contains(long id) {
+        for (Segment segment : segments) {
+            if (Arrays.binarySearch(segment.ids, id) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Reads only the id columns, no row is decoded
+    public LongStream ids() {
+        return segments.stream().flatMapToLong(segment -> Arrays.stream(segment.ids));
+    }
+
+    //Id order within a segment only, callers merging with the live table sort anyway
+    public Stream<Employee> stream() {
+        return segments.stream().flatMap(Segment::stream);
+    }
+
+    public int size() {
+        return segments.stream().mapToInt(segment -> segment.ids.length).sum();
+    }
+
+    public synchronized void clear() {
+        segments = Collections.emptyList();
+    }
+
+    private static final class Segment {
+        private final long[] ids;
+        private final int[] offsets;
+        private final byte[] data;
+
+        private Segment(long[] ids, int[] offsets, byte[] data) {
+            this.ids = ids;
+            this.offsets = offsets;
+            this.data = data;
+        }
+
+        static Segment of(List<Employee> rows) {
+            List<Employee> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparing(Employee::getId));
+            long[] ids = new long[sorted.size()];
+            int[] offsets = new int[sorted.size()];
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(sorted.size() * 64);
+            DataOutputStream output = new DataOutputStream(bytes);
+            try {
+                for (int i = 0; i < sorted.size(); i++) {
+                    ids[i] = sorted.get(i).getId();
+                    offsets[i] = output.size();
+                    encode(output, sorted.get(i));
+                }
+            } catch (IOException ex) {
+                //Writes to an in-memory stream
+                throw new UncheckedIOException(ex);
+            }
+            return new Segment(ids, offsets, bytes.toByteArray());
+        }
+
+        Employee get(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index < 0 ? null : decode(ByteBuffer.wrap(data, offsets[index], data.length - offsets[index]));
+        }
+
+        Stream<Employee> stream() {
+            return IntStream.range(0, ids.length)
+                    .mapToObj(index -> decode(ByteBuffer.wrap(data, offsets[index], data.length - offsets[index])));
+        }
+    }
+
+    private static void encode(DataOutputStream output, Employee employee) throws IOException {
+        output.writeLong(employee.getId());
+        writeString(output, employee.getName());
+        output.writeInt(employee.getAge() == null ? NULL_INT : employee.getAge());
+        writeString(output, employee.getGender());
+        output.writeInt(employee.getSalary() == null ? NULL_INT : employee.getSalary());
+        output.writeByte(employee.getIsActive() == null ? NULL_BOOLEAN : (employee.getIsActive() ? 1 : 0));
+        output.writeLong(employee.getCompanyId() == null ? NULL_LONG : employee.getCompanyId());
+        output.writeLong(employee.getVersion() == null ? NULL_LONG : employee.getVersion());
+    }
+
+    private static Employee decode(ByteBuffer input) {
+        long id = input.getLong();
+        String name = readString(input);
+        int age = input.getInt();
+        String gender = readString(input);
+        int salary = input.getInt();
+        byte isActive = input.get();
+        long companyId = input.getLong();
+        long version = input.getLong();
+        Employee employee = new Employee(id, name, age == NULL_INT ? null : age, gender, salary == NULL_INT ? null : salary);
+        employee.setIsActive(isActive == NULL_BOOLEAN ? null : isActive == 1);
+        employee.setCompanyId(companyId == NULL_LONG ? null : companyId);
+        employee.setVersion(version == NULL_LONG ? null : version);
+        return employee;
+    }
+
+    //Length prefixed UTF-8, a length of -1 stands for null
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer input) {
+        int length = input.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
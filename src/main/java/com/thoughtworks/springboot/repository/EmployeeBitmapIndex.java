@@ -0,0 +1,145 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.AgeBand;
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.Gender;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Bitmap indexes over the low-cardinality employee columns: normalized gender, isActive and age band.
+ * Bit i is set when the employee with id i has that value, so a filter is an AND of a few bitmaps
+ * instead of a scan. Ids are dense thanks to IdGenerator, which keeps the bitmaps compact.
+ */
+public class EmployeeBitmapIndex {
+    //Bits are addressed by int, the highest id the index can hold
+    public static final long MAX_ID = Integer.MAX_VALUE;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Gender, BitSet> byGender = new EnumMap<>(Gender.class);
+    private final Map<AgeBand, BitSet> byAgeBand = new EnumMap<>(AgeBand.class);
+    private final BitSet active = new BitSet();
+    private final BitSet indexed = new BitSet();
+
+    public EmployeeBitmapIndex() {
+        for (Gender gender : Gender.values()) {
+            byGender.put(gender, new BitSet());
+        }
+        for (AgeBand ageBand : AgeBand.values()) {
+            byAgeBand.put(ageBand, new BitSet());
+        }
+    }
+
+    //Re-derives every bit of the row from its current values, so calling it again after any write is safe
+    public void put(Employee employee) {
+        int bit = toBit(employee.getId());
+        lock.writeLock().lock();
+        try {
+            setBits(bit, employee);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Re-reads the stored row under the index lock. Concurrent writers of one row may refresh in any
+    //order, whichever runs last still sees the row left by the last swap
+    public void refresh(Long id, Function<Long, Employee> rows) {
+        int bit = toBit(id);
+        lock.writeLock().lock();
+        try {
+            Employee employee = rows.apply(id);
+            if (employee == null) {
+                clearBit(bit);
+            } else {
+                setBits(bit, employee);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        int bit = toBit(id);
+        lock.writeLock().lock();
+        try {
+            clearBit(bit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Null arguments do not filter; the returned bitmap is a private copy owned by the caller
+    public BitSet select(Gender gender, Boolean isActive, AgeBand ageBand) {
+        return select(gender, isActive, ageBand == null ? null : EnumSet.of(ageBand));
+    }
+
+    //Rows in any of the age bands, for age ranges spanning several of them
+    public BitSet select(Gender gender, Boolean isActive, Set<AgeBand> ageBands) {
+        lock.readLock().lock();
+        try {
+            BitSet result = (BitSet) (gender == null ? indexed : byGender.get(gender)).clone();
+            if (isActive != null) {
+                if (isActive) {
+                    result.and(active);
+                } else {
+                    result.andNot(active);
+                }
+            }
+            if (ageBands != null) {
+                BitSet inAnyBand = new BitSet();
+                ageBands.forEach(ageBand -> inAnyBand.or(byAgeBand.get(ageBand)));
+                result.and(inAnyBand);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            byGender.values().forEach(BitSet::clear);
+            byAgeBand.values().forEach(BitSet::clear);
+            active.clear();
+            indexed.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setBits(int bit, Employee employee) {
+        clearBit(bit);
+        indexed.set(bit);
+        Gender gender = Gender.from(employee.getGender());
+        if (gender != null) {
+            byGender.get(gender).set(bit);
+        }
+        AgeBand ageBand = AgeBand.of(employee.getAge());
+        if (ageBand != null) {
+            byAgeBand.get(ageBand).set(bit);
+        }
+        active.set(bit, Boolean.TRUE.equals(employee.getIsActive()));
+    }
+
+    private void clearBit(int bit) {
+        byGender.values().forEach(bitmap -> bitmap.clear(bit));
+        byAgeBand.values().forEach(bitmap -> bitmap.clear(bit));
+        active.clear(bit);
+        indexed.clear(bit);
+    }
+
+    private static int toBit(Long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Bitmap indexes hold ids from 0 to " + MAX_ID + ", got " + id + ".");
+        }
+        return (int) (long) id;
+    }
+}
@@ -2,103 +2,644 @@ package com.thoughtworks.springboot.repository;
 
 import com.thoughtworks.springboot.exception.EmployeeNotFoundException;
 import com.thoughtworks.springboot.exception.EmployeeValidationException;
+import com.thoughtworks.springboot.exception.VersionConflictException;
+import com.thoughtworks.springboot.metrics.MetricsConfiguration;
+import com.thoughtworks.springboot.model.AgeBand;
+import com.thoughtworks.springboot.model.CursorPage;
 import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeQuery;
+import com.thoughtworks.springboot.model.EmployeeQueryResult;
+import com.thoughtworks.springboot.model.EmployeeStatisticsSummary;
+import com.thoughtworks.springboot.model.Gender;
+import com.thoughtworks.springboot.persistence.EmployeeSnapshotCodec;
+import com.thoughtworks.springboot.persistence.SnapshotHeader;
+import com.thoughtworks.springboot.persistence.SnapshotStore;
+import com.thoughtworks.springboot.persistence.WriteAheadLog;
 import com.thoughtworks.springboot.utility.EmployeeValidator;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public class EmployeeRepository {
-    private static final List<Employee> employees = new ArrayList<>();
-    private static final Long STARTING_ID_MINUS_ONE = 0L;
+    private static final long INITIAL_VERSION = 1L;
+    private static final int PARALLEL_SCAN_MIN_ROWS = 10_000;
 
-    static {
-        employees.add(new Employee(1L, "Ilnear", 42, "Male", 10000));
-        employees.add(new Employee(2L, "Ilfar", 42, "Female", 20000));
-        employees.add(new Employee(3L, "Ilclose", 42, "Male", 3000));
-        employees.add(new Employee(4L, "Ilalmostthere", 42, "Female", 5000));
-        employees.add(new Employee(5L, "Ilfaraway", 42, "Male", 14500));
+    //Keyed by id, doubles as the primary key index
+    private final Table<Employee> employees;
+    private final EmployeeBitmapIndex bitmapIndex = new EmployeeBitmapIndex();
+    //Company membership, the only copy of it; CompanyRepository joins against this table through it
+    private final SecondaryIndex employeeIdsByCompany = new SecondaryIndex();
+    //Updates keep the stored name, so only store, compaction and clear touch it
+    private final NameSearchIndex nameIndex = new NameSearchIndex();
+    private final EmployeeStatistics statistics = new EmployeeStatistics();
+    //Compacted inactive rows, out of the table and every index above
+    private final EmployeeArchive archive = new EmployeeArchive();
+    //Deactivation time of each inactive row, epoch millis, so compaction finds candidates without a scan.
+    //The time is persisted with the row, so a restart keeps the retention clock running
+    private final ConcurrentHashMap<Long, Long> inactiveSince = new ConcurrentHashMap<>();
+    private final IdGenerator idGenerator = new IdGenerator();
+    //Shared by every other write, taken exclusively by insertAll so a batch's rows and index entries land as one
+    //step, and by compactInactive so no row changes between being archived and leaving the table
+    private final ReadWriteLock batchLock = new ReentrantReadWriteLock();
+    private final WriteAheadLog writeAheadLog;
+    private final SnapshotStore snapshotStore;
+
+    public EmployeeRepository() {
+        this(false);
     }
 
-    private Long generateNextId() {
-        return employees.stream()
-                .mapToLong(Employee::getId)
-                .max()
-                .orElse(STARTING_ID_MINUS_ONE) + 1;
+    public EmployeeRepository(boolean columnar) {
+        this(columnar, WriteAheadLog.disabled());
+    }
+
+    public EmployeeRepository(boolean columnar, WriteAheadLog writeAheadLog) {
+        this(columnar, writeAheadLog, SnapshotStore.disabled());
+    }
+
+    @Autowired
+    public EmployeeRepository(@Value("${employee.storage.columnar:false}") boolean columnar, WriteAheadLog writeAheadLog, SnapshotStore snapshotStore) {
+        this.employees = columnar ? new ColumnarEmployeeTable() : new InMemoryTable<>(Employee::getId);
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = snapshotStore;
+        SnapshotHeader snapshot = snapshotStore.restore(SnapshotStore.EMPLOYEES, new EmployeeSnapshotCodec(), restored -> {
+            restored.forEach(EmployeeRepository::upgraded);
+            storeAll(restored);
+        });
+        //Collected first and sealed as one segment, appending each restore batch would fold segments over and over
+        List<Employee> archivedRows = new ArrayList<>();
+        SnapshotHeader archivedSnapshot = snapshotStore.restore(SnapshotStore.ARCHIVED_EMPLOYEES, new EmployeeSnapshotCodec(), restored -> {
+            restored.forEach(EmployeeRepository::upgraded);
+            archivedRows.addAll(restored);
+        });
+        archive.append(archivedRows);
+        if (snapshot == null) {
+            store(copyWithId(1L, inCompany(new Employee("Ilnear", 42, "Male", 10000), 1L)));
+            store(copyWithId(2L, inCompany(new Employee("Ilfar", 42, "Female", 20000), 1L)));
+            store(copyWithId(3L, inCompany(new Employee("Ilclose", 42, "Male", 3000), 1L)));
+            store(copyWithId(4L, inCompany(new Employee("Ilalmostthere", 42, "Female", 5000), 2L)));
+            store(copyWithId(5L, inCompany(new Employee("Ilfaraway", 42, "Male", 14500), 3L)));
+        } else {
+            idGenerator.advanceTo(snapshot.getLastId());
+        }
+        if (archivedSnapshot != null) {
+            idGenerator.advanceTo(archivedSnapshot.getLastId());
+        }
+        //Archived rows never return to the table, so a copy there is stale: it is left behind when a crash
+        //falls between writing the archive image and the table image
+        archive.ids().forEach(this::unstore);
+        writeAheadLog.replay(snapshot == null ? 0L : snapshot.getSequence(), new WriteAheadLog.ReplayHandler() {
+            @Override
+            public void onEmployee(Employee employee) {
+                //A put logged before the row was archived, the archived copy is newer
+                if (!archive.contains(employee.getId()) && isNewer(employee, employees.get(employee.getId()))) {
+                    store(upgraded(employee));
+                }
+            }
+
+            @Override
+            public void onEmployeesArchived(List<Employee> archived) {
+                List<Employee> notArchived = archived.stream()
+                        .filter(employee -> !archive.contains(employee.getId()))
+                        .map(EmployeeRepository::upgraded)
+                        .collect(Collectors.toList());
+                notArchived.forEach(employee -> unstore(employee.getId()));
+                archive.append(notArchived);
+            }
+
+            @Override
+            public void onEmployeesCleared() {
+                clearTables();
+            }
+        });
+    }
+
+    private void store(Employee employee) {
+        Employee previous = employees.put(employee);
+        index(previous, employee);
+    }
+
+    private void unstore(long id) {
+        Employee removed = employees.remove(id);
+        if (removed != null) {
+            unindex(removed);
+        }
+    }
+
+    //Employees from version 1 snapshots and older log records carry no version, they count as new ones.
+    //Inactive ones written before the deactivation time was kept start their retention now
+    private static Employee upgraded(Employee employee) {
+        if (employee.getVersion() == null) {
+            employee.setVersion(INITIAL_VERSION);
+        }
+        if (!Boolean.TRUE.equals(employee.getIsActive()) && employee.getInactiveSince() == null) {
+            employee.setInactiveSince(System.currentTimeMillis());
+        }
+        return employee;
+    }
+
+    //Checked before the replayed row is upgraded, so an unversioned record still replaces the one before it
+    private static boolean isNewer(Employee replayed, Employee existing) {
+        return existing == null
+                || existing.getVersion() == null
+                || replayed.getVersion() == null
+                || replayed.getVersion() > existing.getVersion();
+    }
+
+    private void storeAll(List<Employee> newEmployees) {
+        employees.putAll(newEmployees);
+        newEmployees.forEach(employee -> index(null, employee));
+    }
+
+    private void index(Employee previous, Employee employee) {
+        if (previous != null) {
+            statistics.remove(previous);
+        }
+        statistics.add(employee);
+        bitmapIndex.put(employee);
+        employeeIdsByCompany.move(previous == null ? null : previous.getCompanyId(), employee.getCompanyId(), employee.getId());
+        nameIndex.move(previous == null ? null : previous.getName(), employee.getName(), employee.getId());
+        trackInactive(employee.getId());
+        idGenerator.advanceTo(employee.getId());
+    }
+
+    private void unindex(Employee employee) {
+        statistics.remove(employee);
+        bitmapIndex.remove(employee.getId());
+        employeeIdsByCompany.remove(employee.getCompanyId(), employee.getId());
+        nameIndex.remove(employee.getName(), employee.getId());
+        inactiveSince.remove(employee.getId());
+    }
+
+    //Re-reads the stored row inside the map's per-key lock, so whichever of two racing writers runs last
+    //leaves the entry matching the row
+    private void trackInactive(Long id) {
+        inactiveSince.compute(id, (key, since) -> {
+            Employee employee = employees.get(id);
+            return employee == null || Boolean.TRUE.equals(employee.getIsActive()) ? null : employee.getInactiveSince();
+        });
+    }
+
+    //A row keeps the time it was first deactivated across updates, and loses it once active again
+    private static Long inactiveSince(Employee current, Employee next) {
+        if (Boolean.TRUE.equals(next.getIsActive())) {
+            return null;
+        }
+        if (!Boolean.TRUE.equals(current.getIsActive()) && current.getInactiveSince() != null) {
+            return current.getInactiveSince();
+        }
+        return System.currentTimeMillis();
+    }
+
+    private static Employee inCompany(Employee employee, Long companyId) {
+        employee.setCompanyId(companyId);
+        return employee;
     }
 
+    //Checked before the row is logged or stored, so the table and its indexes never disagree over it
+    private static Employee copyWithId(Long id, Employee employee) {
+        if (id > EmployeeBitmapIndex.MAX_ID) {
+            throw new IllegalStateException("Employee ids are exhausted, the indexes hold ids up to " + EmployeeBitmapIndex.MAX_ID + ".");
+        }
+        Employee newEmployee = new Employee(id, employee.getName(), employee.getAge(), employee.getGender(), employee.getSalary());
+        newEmployee.setCompanyId(employee.getCompanyId());
+        newEmployee.setVersion(INITIAL_VERSION);
+        return newEmployee;
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public List<Employee> listAll() {
-        return employees;
+        return employees.snapshot();
     }
 
+    //Lazily walks the table in id order without copying it, see Table for the consistency guarantees
+    public Stream<Employee> streamAll() {
+        return employees.stream();
+    }
+
+    //Access paths of the reactive API. Tables are in memory, so each is a lazy walk that emits rows only
+    //as fast as the subscriber requests them and never materializes a list
+    public Flux<Employee> listAllReactive() {
+        return Flux.fromStream(employees::stream);
+    }
+
+    public Mono<Employee> findByIdReactive(Long id) {
+        return Mono.fromSupplier(() -> employees.get(id))
+                .switchIfEmpty(Mono.error(() -> new EmployeeNotFoundException("Employee not found with id: " + id)));
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public Employee findById(Long id) {
-        return employees.stream()
-                .filter(employee -> employee.getId().equals(id))
-                .findFirst()
-                .orElseThrow(() -> new EmployeeNotFoundException("Employee not found with id: " + id));
+        Employee employee = employees.get(id);
+        if (employee == null) {
+            throw new EmployeeNotFoundException("Employee not found with id: " + id);
+        }
+        return employee;
     }
 
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public List<Employee> findByGender(String gender) {
-        return employees.stream()
-                .filter(employee -> employee.getGender().equalsIgnoreCase(gender))
+        return findByFilters(gender, null, null);
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public List<Employee> findByFilters(String gender, Boolean isActive, AgeBand ageBand) {
+        return streamByFilters(gender, isActive, ageBand).collect(Collectors.toList());
+    }
+
+    //The bitmap is selected on subscription, rows are then read one per downstream request
+    public Flux<Employee> findByFiltersReactive(String gender, Boolean isActive, AgeBand ageBand) {
+        return Flux.fromStream(() -> streamByFilters(gender, isActive, ageBand));
+    }
+
+    private Stream<Employee> streamByFilters(String gender, Boolean isActive, AgeBand ageBand) {
+        Gender normalizedGender = Gender.from(gender);
+        if (gender != null && normalizedGender == null) {
+            return Stream.empty();
+        }
+        BitSet matches = bitmapIndex.select(normalizedGender, isActive, ageBand);
+        return matches.stream()
+                .mapToObj(id -> employees.get((long) id))
+                .filter(Objects::nonNull);
+    }
+
+    //Picks one access path, then applies the full predicate, sort and limit to the rows it yields.
+    //The company index is usually the most selective, the bitmaps come next, a scan is the fallback
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public EmployeeQueryResult query(EmployeeQuery query) {
+        Stream<Employee> candidates;
+        EmployeeQueryResult.Plan plan;
+        if (query.getCompanyId() != null) {
+            plan = EmployeeQueryResult.Plan.COMPANY_INDEX;
+            candidates = streamByCompanyId(query.getCompanyId());
+        } else if (query.hasIndexedFilter()) {
+            plan = EmployeeQueryResult.Plan.BITMAP_INDEX;
+            candidates = bitmapIndex.select(Gender.from(query.getGender()), query.getActive(), query.getAgeBands()).stream()
+                    .mapToObj(id -> employees.get((long) id))
+                    .filter(Objects::nonNull);
+        } else {
+            plan = EmployeeQueryResult.Plan.PARALLEL_SCAN;
+            //Below this the fork/join hand-off costs more than testing the rows on one thread
+            candidates = employees.size() >= PARALLEL_SCAN_MIN_ROWS ? employees.stream().parallel() : employees.stream();
+        }
+        Stream<Employee> matches = candidates.filter(query::matches).sorted(query.comparator());
+        if (query.getLimit() != null) {
+            matches = matches.limit(query.getLimit());
+        }
+        return new EmployeeQueryResult(plan, matches.collect(Collectors.toList()));
+    }
+
+    //Top matches by name in rank order, see NameSearchIndex for how they are ranked
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public List<Employee> searchByName(String query, int limit) {
+        return nameIndex.search(query, limit).stream()
+                .map(employees::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public Employee addEmployee(Employee employee) {
-        try {
-            Long id = generateNextId();
-            EmployeeValidator.validateEmployee(employee);
+        EmployeeValidator.validateEmployee(employee);
+        Long id = idGenerator.nextId();
 
-            Employee newEmployee = new Employee(id,
-                    employee.getName(),
-                    employee.getAge(),
-                    employee.getGender(),
-                    employee.getSalary());
+        Employee newEmployee = copyWithId(id, employee);
 
-            employees.add(newEmployee);
-            //TODO Handle Business Logic and Validation in service, reference day8-Spring Boot.pdf page 8
-            return newEmployee;
-        } catch (EmployeeValidationException ex) {
-            throw new EmployeeValidationException(ex.getMessage());
-        }
+        //Logged before it becomes visible so no update of the row can reach the log ahead of it
+        long sequence = writeAheadLog.mutate(() -> locked(batchLock.readLock(), () -> {
+            long logged = writeAheadLog.logEmployee(newEmployee);
+            store(newEmployee);
+            return logged;
+        }));
+        writeAheadLog.awaitDurable(sequence);
+        //TODO Handle Business Logic and Validation in service, reference day8-Spring Boot.pdf page 8
+        return newEmployee;
     }
 
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public Employee updateEmployee(Employee updatedEmployee) throws EmployeeValidationException {
+        return updateEmployee(updatedEmployee, null);
+    }
+
+    //Stored rows are never mutated: an update swaps in a new copy only if the row read is still current,
+    //and retries on a lost race, so readers never block and never see a half-applied update.
+    //A non-null expectedVersion turns the update into a compare-and-set against the stored version
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public Employee updateEmployee(Employee updatedEmployee, Long expectedVersion) throws EmployeeValidationException {
         EmployeeValidator.validateEmployee(updatedEmployee);
 
-        Employee employeeToUpdate = employees.stream()
-                .filter(employee -> employee.getId().equals(updatedEmployee.getId()))
-                .findFirst()
-                .orElse(null);
-        //TODO Handle Business Logic and Validation in service, reference day8-Spring Boot.pdf page 8
-        if (employeeToUpdate != null) {
-            employeeToUpdate.setAge(updatedEmployee.getAge());
-            employeeToUpdate.setSalary(updatedEmployee.getSalary());
-            employeeToUpdate.setIsActive(updatedEmployee.getIsActive());
-            return employeeToUpdate;
-        } else {
-            throw new EmployeeNotFoundException("Employee not found with id: " + updatedEmployee.getId());
+        while (true) {
+            Employee current = employees.get(updatedEmployee.getId());
+            //TODO Handle Business Logic and Validation in service, reference day8-Spring Boot.pdf page 8
+            if (current == null) {
+                throw new EmployeeNotFoundException("Employee not found with id: " + updatedEmployee.getId());
+            }
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                throw new VersionConflictException("Employee " + current.getId() + " is at version " + current.getVersion() + ", not " + expectedVersion + ".");
+            }
+            Employee next = nextVersion(current, updatedEmployee);
+            Long sequence = swap(current, next);
+            if (sequence != null) {
+                writeAheadLog.awaitDurable(sequence);
+                return next;
+            }
+        }
+    }
+
+    //Marks the employee inactive. The inactive copy is built from the row read inside the retry loop,
+    //so an update racing with the deactivation is kept instead of overwritten
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public Employee deactivate(Long id) {
+        while (true) {
+            Employee current = employees.get(id);
+            if (current == null) {
+                throw new EmployeeNotFoundException("Employee not found with id: " + id);
+            }
+            if (!Boolean.TRUE.equals(current.getIsActive())) {
+                return current;
+            }
+            Employee next = withVersion(copyOf(current), current);
+            next.setIsActive(false);
+            Long sequence = swap(current, next);
+            if (sequence != null) {
+                writeAheadLog.awaitDurable(sequence);
+                return next;
+            }
+        }
+    }
+
+    //Detaches up to limit employees from the company and returns the detached rows. Each row is swapped
+    //like an update, so an update racing with the detach retries on the detached copy instead of undoing it.
+    //The batch waits for durability once, after its last write
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public List<Employee> detachFromCompany(Long companyId, int limit) {
+        List<Long> ids = employeeIdsByCompany.get(companyId).stream().limit(limit).collect(Collectors.toList());
+        List<Employee> detached = new ArrayList<>(ids.size());
+        Long lastSequence = null;
+        for (Long id : ids) {
+            while (true) {
+                Employee current = employees.get(id);
+                if (current == null || !companyId.equals(current.getCompanyId())) {
+                    //Stale entry, drop it so the next batch makes progress
+                    employeeIdsByCompany.remove(companyId, id);
+                    break;
+                }
+                Employee next = withVersion(inCompany(copyOf(current), null), current);
+                Long sequence = swap(current, next);
+                if (sequence != null) {
+                    detached.add(next);
+                    lastSequence = sequence;
+                    break;
+                }
+            }
+        }
+        if (lastSequence != null) {
+            writeAheadLog.awaitDurable(lastSequence);
+        }
+        return detached;
+    }
+
+    //Only the writer that won the swap logs; replay keeps the highest version if two log out of order.
+    //Returns the log sequence, or null when another writer replaced the row first
+    private Long swap(Employee current, Employee next) {
+        next.setInactiveSince(inactiveSince(current, next));
+        return writeAheadLog.mutate(() -> locked(batchLock.readLock(), () -> {
+            if (!employees.replace(current, next)) {
+                return null;
+            }
+            long logged = writeAheadLog.logEmployee(next);
+            statistics.remove(current);
+            statistics.add(next);
+            bitmapIndex.refresh(next.getId(), employees::get);
+            employeeIdsByCompany.move(current.getCompanyId(), next.getCompanyId(), next.getId());
+            trackInactive(next.getId());
+            return logged;
+        }));
+    }
+
+    private static <T> T locked(Lock lock, Supplier<T> write) {
+        lock.lock();
+        try {
+            return write.get();
+        } finally {
+            lock.unlock();
         }
     }
 
+    //Moves rows inactive for longer than retention into the archive and drops them from the table and
+    //every index, returns the archived rows. Runs exclusively of other writes, so a reactivation either
+    //lands first and keeps its row or finds it gone. The moved rows are logged as one record, so after a
+    //restart they go back into the archive rather than the table
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public List<Employee> compactInactive(Duration retention) {
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        List<Employee> compacted = new ArrayList<>();
+        //One mutation, so a checkpoint sees every row either in the table or in the archive
+        long sequence = writeAheadLog.mutate(() -> locked(batchLock.writeLock(), () -> {
+            for (Map.Entry<Long, Long> entry : inactiveSince.entrySet()) {
+                Employee current = entry.getValue() > cutoff ? null : employees.get(entry.getKey());
+                if (current != null && !Boolean.TRUE.equals(current.getIsActive())) {
+                    compacted.add(current);
+                }
+            }
+            if (compacted.isEmpty()) {
+                return 0L;
+            }
+            //Archived before they leave the table, so a reader falling back to the archive never misses one
+            archive.append(compacted);
+            for (Employee employee : compacted) {
+                employees.remove(employee.getId());
+                unindex(employee);
+            }
+            return writeAheadLog.logEmployeesArchived(compacted);
+        }));
+        writeAheadLog.awaitDurable(sequence);
+        return compacted;
+    }
+
+    public Employee findArchivedById(Long id) {
+        return archive.get(id);
+    }
+
+    public List<Employee> listArchived() {
+        return archive.stream().collect(Collectors.toList());
+    }
+
+    //Archived rows are all inactive, so an active filter matches none of them
+    public List<Employee> findArchivedByFilters(String gender, Boolean isActive, AgeBand ageBand) {
+        Gender normalizedGender = Gender.from(gender);
+        if ((gender != null && normalizedGender == null) || Boolean.TRUE.equals(isActive)) {
+            return Collections.emptyList();
+        }
+        return archive.stream()
+                .filter(employee -> normalizedGender == null || normalizedGender == Gender.from(employee.getGender()))
+                .filter(employee -> ageBand == null || ageBand == AgeBand.of(employee.getAge()))
+                .collect(Collectors.toList());
+    }
+
+    public int archivedSize() {
+        return archive.size();
+    }
+
+    private static Employee nextVersion(Employee current, Employee updatedEmployee) {
+        Employee next = new Employee(current.getId(), current.getName(), updatedEmployee.getAge(), current.getGender(), updatedEmployee.getSalary());
+        next.setIsActive(updatedEmployee.getIsActive());
+        next.setCompanyId(current.getCompanyId());
+        return withVersion(next, current);
+    }
+
+    private static Employee copyOf(Employee employee) {
+        Employee copy = new Employee(employee.getId(), employee.getName(), employee.getAge(), employee.getGender(), employee.getSalary());
+        copy.setIsActive(employee.getIsActive());
+        copy.setCompanyId(employee.getCompanyId());
+        copy.setInactiveSince(employee.getInactiveSince());
+        return copy;
+    }
+
+    private static Employee withVersion(Employee next, Employee current) {
+        next.setVersion(current.getVersion() == null ? INITIAL_VERSION : current.getVersion() + 1);
+        return next;
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public List<Employee> listByPage(Long pageNumber, Long pageSize) {
+        return streamPage(pageNumber, pageSize).collect(Collectors.toList());
+    }
+
+    public Flux<Employee> listByPageReactive(Long pageNumber, Long pageSize) {
+        return Flux.fromStream(() -> streamPage(pageNumber, pageSize));
+    }
+
+    private Stream<Employee> streamPage(Long pageNumber, Long pageSize) {
         return employees.stream()
                 .skip((pageNumber - 1) * pageSize)
-                .limit(pageSize)
-                .collect(Collectors.toList());
+                .limit(pageSize);
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public CursorPage<Employee> listAfter(Long afterId, Integer limit) {
+        return employees.pageAfter(afterId, limit);
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public EmployeeStatisticsSummary getStatistics() {
+        return statistics.summary();
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public List<Employee> findByCompanyId(Long companyId) {
+        return streamByCompanyId(companyId).collect(Collectors.toList());
+    }
+
+    public Flux<Employee> findByCompanyIdReactive(Long companyId) {
+        return Flux.fromStream(() -> streamByCompanyId(companyId));
     }
 
+    //Only detachFromCompany moves a row out of a company, updates keep the row's companyId
+    private Stream<Employee> streamByCompanyId(Long companyId) {
+        return employeeIdsByCompany.get(companyId).stream()
+                .map(employees::get)
+                .filter(Objects::nonNull);
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public EmployeeStatisticsSummary getStatisticsByCompanyId(Long companyId) {
+        return statistics.summary(companyId);
+    }
+
+    //Companies that still have employees, including deleted ones whose employees are not detached yet
+    public Set<Long> findReferencedCompanyIds() {
+        return employeeIdsByCompany.keys();
+    }
+
+    public int size() {
+        return employees.size();
+    }
+
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public void cleanUpEmployeeData() {
+        long sequence = writeAheadLog.mutate(() -> locked(batchLock.readLock(), () -> {
+            clearTables();
+            return writeAheadLog.logEmployeesCleared();
+        }));
+        writeAheadLog.awaitDurable(sequence);
+    }
+
+    //Fuzzy copies of the table and the archive, rows changed after the checkpoint are replayed from the log anyway.
+    //The archive goes first: a crash between the two files then leaves rows archived in between in both
+    //images, which restore resolves, instead of in neither
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public void writeSnapshot(long checkpointSequence) {
+        snapshotStore.write(SnapshotStore.ARCHIVED_EMPLOYEES, checkpointSequence, idGenerator.lastId(),
+                archive.stream(), new EmployeeSnapshotCodec());
+        snapshotStore.write(SnapshotStore.EMPLOYEES, checkpointSequence, idGenerator.lastId(),
+                employees.stream(), new EmployeeSnapshotCodec());
+    }
+
+    private void clearTables() {
         employees.clear();
+        bitmapIndex.clear();
+        employeeIdsByCompany.clear();
+        nameIndex.clear();
+        statistics.clear();
+        archive.clear();
+        inactiveSince.clear();
+        idGenerator.reset();
     }
 
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
     public Employee insert(Employee employee) {
-        Long id = generateNextId();
-        Employee newEmployee = new Employee(id, employee.getName(), employee.getAge(), employee.getGender(), employee.getSalary());
-        employees.add(newEmployee);
+        Long id = idGenerator.nextId();
+        Employee newEmployee = copyWithId(id, employee);
+        long sequence = writeAheadLog.mutate(() -> locked(batchLock.readLock(), () -> {
+            long logged = writeAheadLog.logEmployee(newEmployee);
+            store(newEmployee);
+            return logged;
+        }));
+        writeAheadLog.awaitDurable(sequence);
         return newEmployee;
     }
+
+    //Takes one contiguous id block for the whole batch instead of one allocation per row
+    @Timed(MetricsConfiguration.REPOSITORY_OPERATIONS)
+    public List<Employee> insertAll(List<Employee> employeesToInsert) {
+        if (employeesToInsert.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long firstId = idGenerator.reserve(employeesToInsert.size());
+        List<Employee> newEmployees = new ArrayList<>(employeesToInsert.size());
+        for (int i = 0; i < employeesToInsert.size(); i++) {
+            newEmployees.add(copyWithId(firstId + i, employeesToInsert.get(i)));
+        }
+        //Exclusive, so no single-row write lands between the rows becoming visible and their index entries
+        long lastSequence = writeAheadLog.mutate(() -> locked(batchLock.writeLock(), () -> {
+            long logged = 0L;
+            for (Employee newEmployee : newEmployees) {
+                logged = writeAheadLog.logEmployee(newEmployee);
+            }
+            storeAll(newEmployees);
+            return logged;
+        }));
+        writeAheadLog.awaitDurable(lastSequence);
+        return newEmployees;
+    }
 }
@@ -0,0 +1,102 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeStatisticsSummary;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Salary and age statistics of active employees, overall and per company. Writers report each row
+ * before and after a change, so reading a summary never scans the table.
+ */
+public class EmployeeStatistics {
+    private static final int SALARY_BUCKET_WIDTH = 10_000;
+    private static final int SALARY_BUCKET_COUNT = 20;
+    private static final int AGE_BUCKET_WIDTH = 10;
+    private static final int AGE_BUCKET_COUNT = 10;
+
+    private final Group total = new Group();
+    private final ConcurrentHashMap<Long, Group> byCompany = new ConcurrentHashMap<>();
+
+    public void add(Employee employee) {
+        if (!Boolean.TRUE.equals(employee.getIsActive())) {
+            return;
+        }
+        total.add(employee);
+        if (employee.getCompanyId() != null) {
+            byCompany.compute(employee.getCompanyId(), (companyId, group) -> withoutEmpty(orNew(group).add(employee)));
+        }
+    }
+
+    public void remove(Employee employee) {
+        if (!Boolean.TRUE.equals(employee.getIsActive())) {
+            return;
+        }
+        total.remove(employee);
+        //A remove may land before its add, so it creates the group just like add does
+        if (employee.getCompanyId() != null) {
+            byCompany.compute(employee.getCompanyId(), (companyId, group) -> withoutEmpty(orNew(group).remove(employee)));
+        }
+    }
+
+    public EmployeeStatisticsSummary summary() {
+        return total.summary();
+    }
+
+    public EmployeeStatisticsSummary summary(Long companyId) {
+        return byCompany.getOrDefault(companyId, new Group()).summary();
+    }
+
+    public void clear() {
+        total.clear();
+        byCompany.clear();
+    }
+
+    //Companies holding a group; one whose rows have all left, a deleted company included, holds none
+    int companyCount() {
+        return byCompany.size();
+    }
+
+    private static Group orNew(Group group) {
+        return group == null ? new Group() : group;
+    }
+
+    //Dropped only once every add has met its remove, a group waiting for a raced add is kept
+    private static Group withoutEmpty(Group group) {
+        return group.isEmpty() ? null : group;
+    }
+
+    private static class Group {
+        private final RunningStatistics salary = new RunningStatistics(SALARY_BUCKET_WIDTH, SALARY_BUCKET_COUNT);
+        private final RunningStatistics age = new RunningStatistics(AGE_BUCKET_WIDTH, AGE_BUCKET_COUNT);
+        private long count;
+
+        synchronized Group add(Employee employee) {
+            count++;
+            salary.add(employee.getSalary());
+            age.add(employee.getAge());
+            return this;
+        }
+
+        synchronized Group remove(Employee employee) {
+            count--;
+            salary.remove(employee.getSalary());
+            age.remove(employee.getAge());
+            return this;
+        }
+
+        synchronized boolean isEmpty() {
+            return count == 0 && salary.isEmpty() && age.isEmpty();
+        }
+
+        synchronized EmployeeStatisticsSummary summary() {
+            return new EmployeeStatisticsSummary(count, salary.summary(), age.summary());
+        }
+
+        synchronized void clear() {
+            count = 0;
+            salary.clear();
+            age.clear();
+        }
+    }
+}
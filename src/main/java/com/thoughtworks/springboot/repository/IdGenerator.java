@@ -0,0 +1,34 @@
+package com.thoughtworks.springboot.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class IdGenerator {
+    private static final long STARTING_ID_MINUS_ONE = 0L;
+
+    private final AtomicLong lastId = new AtomicLong(STARTING_ID_MINUS_ONE);
+
+    public Long nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    //Returns the first id of a contiguous block of count ids owned by the caller
+    public Long reserve(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Reserved id count must be greater than zero.");
+        }
+        return lastId.getAndAdd(count) + 1;
+    }
+
+    //Seeds the generator from rows that already carry an id so new ids never collide with them
+    public void advanceTo(long existingId) {
+        lastId.accumulateAndGet(existingId, Math::max);
+    }
+
+    public long lastId() {
+        return lastId.get();
+    }
+
+    public void reset() {
+        lastId.set(STARTING_ID_MINUS_ONE);
+    }
+}
@@ -0,0 +1,126 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.CursorPage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Thread-safe row storage keyed by id. Writes go through a ConcurrentHashMap, which locks per bin, and
+ * update the id-ordered skip list under that same lock so the two never disagree. Iteration walks the
+ * skip list so readers never block writers and never see a ConcurrentModificationException. Iteration
+ * is weakly consistent: every row present for the whole walk is returned exactly once, rows written
+ * during the walk may or may not be.
+ */
+public class InMemoryTable<T> implements Table<T> {
+
+    private final Function<T, Long> idExtractor;
+    private final ConcurrentHashMap<Long, T> rows = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+
+    public InMemoryTable(Function<T, Long> idExtractor) {
+        this.idExtractor = idExtractor;
+    }
+
+    @Override
+    public T get(Long id) {
+        return id == null ? null : rows.get(id);
+    }
+
+    @Override
+    public T put(T row) {
+        Long id = idExtractor.apply(row);
+        List<T> previous = new ArrayList<>(1);
+        //The id set changes under the row's bin lock, so a racing remove of the same id cannot undo it
+        rows.compute(id, (key, current) -> {
+            if (current != null) {
+                previous.add(current);
+            }
+            orderedIds.add(id);
+            return row;
+        });
+        return previous.isEmpty() ? null : previous.get(0);
+    }
+
+    @Override
+    public T computeIfPresent(Long id, UnaryOperator<T> update) {
+        return id == null ? null : rows.computeIfPresent(id, (key, row) -> update.apply(row));
+    }
+
+    //Rows do not override equals, so this compares by identity against the stored instance
+    @Override
+    public boolean replace(T expected, T next) {
+        return rows.replace(idExtractor.apply(next), expected, next);
+    }
+
+    @Override
+    public T remove(Long id) {
+        if (id == null) {
+            return null;
+        }
+        List<T> removed = new ArrayList<>(1);
+        rows.computeIfPresent(id, (key, current) -> {
+            removed.add(current);
+            orderedIds.remove(id);
+            return null;
+        });
+        return removed.isEmpty() ? null : removed.get(0);
+    }
+
+    @Override
+    public boolean remove(T expected) {
+        Long id = idExtractor.apply(expected);
+        List<T> removed = new ArrayList<>(1);
+        rows.computeIfPresent(id, (key, current) -> {
+            if (current != expected) {
+                return current;
+            }
+            removed.add(current);
+            orderedIds.remove(id);
+            return null;
+        });
+        return !removed.isEmpty();
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return orderedIds.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull);
+    }
+
+    //Keyset pagination: seeks straight to the row after the cursor instead of skipping an offset
+    @Override
+    public CursorPage<T> pageAfter(Long afterId, int limit) {
+        NavigableSet<Long> remainingIds = afterId == null ? orderedIds : orderedIds.tailSet(afterId, false);
+        List<T> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<Long> ids = remainingIds.iterator();
+        while (ids.hasNext() && page.size() < limit) {
+            T row = rows.get(ids.next());
+            if (row != null) {
+                page.add(row);
+            }
+        }
+        Long nextCursor = ids.hasNext() && !page.isEmpty() ? idExtractor.apply(page.get(page.size() - 1)) : null;
+        return new CursorPage<>(page, nextCursor);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public void clear() {
+        orderedIds.clear();
+        rows.clear();
+    }
+}
@@ -0,0 +1,428 @@
+package com.thoughtworks.springboot.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Typeahead index over a name column, ranking matches in three tiers:
+ * names starting with the query, then names with a later word starting with it, then names whose words
+ * are within a small edit distance of the query's words. The first two tiers are range scans of sorted
+ * key sets that stop after limit ids, so they cost O(log n + limit) however many names are indexed.
+ * The fuzzy tier only runs when they come up short; it finds candidate words through a trigram index over
+ * the distinct words, and for short words also through their one-letter deletions. A one-word query then
+ * reads at most limit ids per matching word; a longer one walks the postings of its rarest word only.
+ * Names are matched case-insensitively with whitespace collapsed.
+ */
+public class NameSearchIndex {
+    public static final int MAX_LIMIT = 100;
+    private static final char PAD = '$';
+    //A typo in a word this short can leave it no trigram in common with the intended word, "jhon" and
+    //"john" share none, so such query words also look up their one-letter deletions
+    private static final int SHORT_WORD_LENGTH = 5;
+
+    private final PrefixIndex idsByName = new PrefixIndex();
+    //Every suffix of a name that starts at a later word, "mary jane doe" is filed under "jane doe" and "doe"
+    private final PrefixIndex idsByLaterWords = new PrefixIndex();
+    private final ConcurrentHashMap<String, NavigableSet<Long>> idsByWord = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> wordsByTrigram = new ConcurrentHashMap<>();
+    //Words one edit apart share an entry here: the word itself or one of its one-letter deletions.
+    //Only words a short query word can reach are filed
+    private final ConcurrentHashMap<String, Set<String>> wordsByDeletion = new ConcurrentHashMap<>();
+
+    public void add(String name, Long id) {
+        String normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        idsByName.add(normalized, id);
+        String[] words = normalized.split(" ");
+        int start = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                idsByLaterWords.add(normalized.substring(start), id);
+            }
+            start += words[i].length() + 1;
+            addWord(words[i], id);
+        }
+    }
+
+    public void remove(String name, Long id) {
+        String normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        idsByName.remove(normalized, id);
+        String[] words = normalized.split(" ");
+        int start = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                idsByLaterWords.remove(normalized.substring(start), id);
+            }
+            start += words[i].length() + 1;
+            removeWord(words[i], id);
+        }
+    }
+
+    public void move(String oldName, String newName, Long id) {
+        if (Objects.equals(normalize(oldName), normalize(newName))) {
+            return;
+        }
+        remove(oldName, id);
+        add(newName, id);
+    }
+
+    //Ids in rank order; within a tier, prefix matches come in name order and fuzzy ones by edit distance
+    public List<Long> search(String query, int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        String normalized = normalize(query);
+        Set<Long> ranked = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return new ArrayList<>(ranked);
+        }
+        idsByName.collect(normalized, ranked, limit);
+        idsByLaterWords.collect(normalized, ranked, limit);
+        if (ranked.size() < limit) {
+            collectFuzzy(normalized.split(" "), ranked, limit);
+        }
+        return new ArrayList<>(ranked);
+    }
+
+    public void clear() {
+        idsByName.clear();
+        idsByLaterWords.clear();
+        idsByWord.clear();
+        wordsByTrigram.clear();
+        wordsByDeletion.clear();
+    }
+
+    //A name matches when every query word is within reach of one of its words; ids are ranked by
+    //the summed distance, so closer spellings come first
+    private void collectFuzzy(String[] queryWords, Set<Long> ranked, int limit) {
+        List<Map<String, Integer>> reachable = new ArrayList<>();
+        for (String queryWord : queryWords) {
+            Map<String, Integer> distanceByWord = reachableWords(queryWord);
+            if (distanceByWord.isEmpty()) {
+                return;
+            }
+            reachable.add(distanceByWord);
+        }
+        if (reachable.size() == 1) {
+            collectClosest(reachable.get(0), ranked, limit);
+        } else {
+            collectClosestToAll(reachable, ranked, limit);
+        }
+    }
+
+    private Map<String, Integer> reachableWords(String queryWord) {
+        Map<String, Integer> distanceByWord = new HashMap<>();
+        int maxDistance = maxDistance(queryWord);
+        for (String word : candidateWords(queryWord)) {
+            if (Math.abs(word.length() - queryWord.length()) > maxDistance) {
+                continue;
+            }
+            int distance = editDistance(queryWord, word, maxDistance);
+            if (distance <= maxDistance) {
+                distanceByWord.put(word, distance);
+            }
+        }
+        return distanceByWord;
+    }
+
+    //Postings are sorted by id, so the best ids at a distance are among the first unranked ones of each
+    //word there; at most limit ids are read per word, however common the word is
+    private void collectClosest(Map<String, Integer> distanceByWord, Set<Long> ranked, int limit) {
+        int maxDistance = Collections.max(distanceByWord.values());
+        for (int distance = 0; distance <= maxDistance && ranked.size() < limit; distance++) {
+            int needed = limit - ranked.size();
+            NavigableSet<Long> closest = new TreeSet<>();
+            for (Map.Entry<String, Integer> entry : distanceByWord.entrySet()) {
+                if (entry.getValue() != distance) {
+                    continue;
+                }
+                int taken = 0;
+                Iterator<Long> ids = postings(entry.getKey()).iterator();
+                while (taken < needed && ids.hasNext()) {
+                    Long id = ids.next();
+                    if (!ranked.contains(id) && closest.add(id)) {
+                        taken++;
+                    }
+                }
+            }
+            closest.stream().limit(needed).forEach(ranked::add);
+        }
+    }
+
+    //Ids are drawn from the query word with the fewest postings and kept only if every other query word
+    //reaches one of their words; a heap of limit entries picks the closest without sorting them all
+    private void collectClosestToAll(List<Map<String, Integer>> reachable, Set<Long> ranked, int limit) {
+        int rarest = 0;
+        long fewest = Long.MAX_VALUE;
+        for (int i = 0; i < reachable.size(); i++) {
+            long count = countPostings(reachable.get(i), fewest);
+            if (count < fewest) {
+                fewest = count;
+                rarest = i;
+            }
+        }
+        Map<Long, Integer> distances = new HashMap<>();
+        reachable.get(rarest).forEach((word, distance) -> postings(word).forEach(id -> {
+            if (!ranked.contains(id)) {
+                distances.merge(id, distance, Math::min);
+            }
+        }));
+        for (int i = 0; i < reachable.size() && !distances.isEmpty(); i++) {
+            if (i == rarest) {
+                continue;
+            }
+            Map<String, Integer> distanceByWord = reachable.get(i);
+            Iterator<Map.Entry<Long, Integer>> entries = distances.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Long, Integer> entry = entries.next();
+                int closest = closestDistance(distanceByWord, entry.getKey());
+                if (closest < 0) {
+                    entries.remove();
+                } else {
+                    entry.setValue(entry.getValue() + closest);
+                }
+            }
+        }
+
+        Comparator<Map.Entry<Long, Integer>> rank = Map.Entry.<Long, Integer>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey());
+        int needed = limit - ranked.size();
+        PriorityQueue<Map.Entry<Long, Integer>> best = new PriorityQueue<>(needed, rank.reversed());
+        for (Map.Entry<Long, Integer> entry : distances.entrySet()) {
+            if (best.size() < needed) {
+                best.add(entry);
+            } else if (rank.compare(entry, best.peek()) < 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+        best.stream().sorted(rank).forEach(entry -> ranked.add(entry.getKey()));
+    }
+
+    //Stops counting at cap, the size of a posting set is a walk over it
+    private long countPostings(Map<String, Integer> distanceByWord, long cap) {
+        long count = 0;
+        for (String word : distanceByWord.keySet()) {
+            for (Iterator<Long> ids = postings(word).iterator(); ids.hasNext(); ids.next()) {
+                if (++count >= cap) {
+                    return cap;
+                }
+            }
+        }
+        return count;
+    }
+
+    //Smallest distance of the words holding id, or -1 when none does
+    private int closestDistance(Map<String, Integer> distanceByWord, Long id) {
+        int closest = -1;
+        for (Map.Entry<String, Integer> entry : distanceByWord.entrySet()) {
+            if ((closest < 0 || entry.getValue() < closest) && postings(entry.getKey()).contains(id)) {
+                closest = entry.getValue();
+            }
+        }
+        return closest;
+    }
+
+    private NavigableSet<Long> postings(String word) {
+        return idsByWord.getOrDefault(word, Collections.emptyNavigableSet());
+    }
+
+    private Set<String> candidateWords(String queryWord) {
+        Set<String> candidates = new LinkedHashSet<>();
+        collectWords(wordsByTrigram, trigrams(queryWord), candidates);
+        if (queryWord.length() <= SHORT_WORD_LENGTH) {
+            collectWords(wordsByDeletion, deletions(queryWord), candidates);
+        }
+        return candidates;
+    }
+
+    private static void collectWords(Map<String, Set<String>> wordsByKey, Set<String> keys, Set<String> candidates) {
+        for (String key : keys) {
+            Set<String> words = wordsByKey.get(key);
+            if (words != null) {
+                candidates.addAll(words);
+            }
+        }
+    }
+
+    //Short words have too few letters for a typo to be told apart from a different word
+    private static int maxDistance(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    //Levenshtein distance with adjacent transpositions counted as one edit (optimal string alignment),
+    //cut short once every cell of a row exceeds maxDistance
+    private static int editDistance(String left, String right, int maxDistance) {
+        int[] beforePrevious = new int[right.length() + 1];
+        int[] previous = new int[right.length() + 1];
+        int[] current = new int[right.length() + 1];
+        for (int j = 0; j <= right.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= left.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= right.length(); j++) {
+                int substitution = previous[j - 1] + (left.charAt(i - 1) == right.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && left.charAt(i - 1) == right.charAt(j - 2) && left.charAt(i - 2) == right.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[right.length()];
+    }
+
+    //Word postings and the word's trigrams and deletions change inside the same per-word compute, so a word
+    //is in those indexes exactly while some row holds it
+    private void addWord(String word, Long id) {
+        idsByWord.compute(word, (key, ids) -> {
+            NavigableSet<Long> wordIds = ids == null ? new ConcurrentSkipListSet<>() : ids;
+            if (ids == null) {
+                fileWord(wordsByTrigram, trigrams(word), word);
+                //A short query word reaches words one letter longer than itself
+                if (word.length() <= SHORT_WORD_LENGTH + 1) {
+                    fileWord(wordsByDeletion, deletions(word), word);
+                }
+            }
+            wordIds.add(id);
+            return wordIds;
+        });
+    }
+
+    private void removeWord(String word, Long id) {
+        idsByWord.computeIfPresent(word, (key, ids) -> {
+            ids.remove(id);
+            if (!ids.isEmpty()) {
+                return ids;
+            }
+            unfileWord(wordsByTrigram, trigrams(word), word);
+            if (word.length() <= SHORT_WORD_LENGTH + 1) {
+                unfileWord(wordsByDeletion, deletions(word), word);
+            }
+            return null;
+        });
+    }
+
+    private static void fileWord(ConcurrentHashMap<String, Set<String>> wordsByKey, Set<String> keys, String word) {
+        keys.forEach(key -> wordsByKey.computeIfAbsent(key, indexKey -> ConcurrentHashMap.newKeySet()).add(word));
+    }
+
+    private static void unfileWord(ConcurrentHashMap<String, Set<String>> wordsByKey, Set<String> keys, String word) {
+        keys.forEach(key -> wordsByKey.computeIfPresent(key, (indexKey, words) -> {
+            words.remove(word);
+            return words.isEmpty() ? null : words;
+        }));
+    }
+
+    //Padded so a word's first and last letters get grams of their own, "doe" gives $do, doe, oe$
+    private static Set<String> trigrams(String word) {
+        String padded = PAD + word + PAD;
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Ids by key, scanned in key order by prefix. ConcurrentSkipListMap.compute may run its function on a
+     * value another thread is changing, so an id added to a set that is just being dropped as empty would
+     * be lost. The postings live in a ConcurrentHashMap instead, whose compute holds the key's lock, and
+     * the sorted key set is updated inside that lock, so it holds a key exactly while it has ids.
+     */
+    private static final class PrefixIndex {
+        private final ConcurrentHashMap<String, NavigableSet<Long>> idsByKey = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<String> sortedKeys = new ConcurrentSkipListSet<>();
+
+        void add(String key, Long id) {
+            idsByKey.compute(key, (indexKey, ids) -> {
+                NavigableSet<Long> keyIds = ids == null ? new ConcurrentSkipListSet<>() : ids;
+                if (ids == null) {
+                    sortedKeys.add(key);
+                }
+                keyIds.add(id);
+                return keyIds;
+            });
+        }
+
+        void remove(String key, Long id) {
+            idsByKey.computeIfPresent(key, (indexKey, ids) -> {
+                ids.remove(id);
+                if (!ids.isEmpty()) {
+                    return ids;
+                }
+                sortedKeys.remove(key);
+                return null;
+            });
+        }
+
+        //A key dropped between the scan and the lookup has no ids left to collect
+        void collect(String prefix, Set<Long> ranked, int limit) {
+            for (String key : sortedKeys.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+                for (Long id : idsByKey.getOrDefault(key, Collections.emptyNavigableSet())) {
+                    if (ranked.size() >= limit) {
+                        return;
+                    }
+                    ranked.add(id);
+                }
+            }
+        }
+
+        void clear() {
+            idsByKey.clear();
+            sortedKeys.clear();
+        }
+    }
+
+    //The word and every word one letter shorter, "jhon" gives jhon, hon, jon, jhn, jho. A transposition,
+    //substitution, insertion or deletion leaves two words sharing one of these
+    private static Set<String> deletions(String word) {
+        Set<String> deletions = new LinkedHashSet<>();
+        deletions.add(word);
+        for (int i = 0; i < word.length(); i++) {
+            deletions.add(word.substring(0, i) + word.substring(i + 1));
+        }
+        return deletions;
+    }
+
+    private static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        return String.join(" ", Arrays.stream(name.trim().toLowerCase(Locale.ROOT).split("\\s+"))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new));
+    }
+}
@@ -0,0 +1,102 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.ColumnStatistics;
+import com.thoughtworks.springboot.model.HistogramBucket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Statistics over one integer column that are updated per row instead of recomputed by scanning.
+ * Count, sum and histogram are O(1) per update. Min and max stay exact on removal through a
+ * value-count tree whose size is bounded by the number of distinct values, not rows.
+ * Every update is a commutative delta, so a remove may arrive before its matching add when two
+ * writers race on one row; a value's count then dips below zero until the add lands.
+ */
+public class RunningStatistics {
+
+    private final int bucketWidth;
+    private final long[] buckets;
+    private final TreeMap<Integer, Long> valueCounts = new TreeMap<>();
+    private long count;
+    private long sum;
+
+    //Buckets are [0, width), [width, 2*width), ... with the first and last open-ended
+    public RunningStatistics(int bucketWidth, int bucketCount) {
+        this.bucketWidth = bucketWidth;
+        this.buckets = new long[bucketCount];
+    }
+
+    public synchronized void add(Integer value) {
+        if (value == null) {
+            return;
+        }
+        count++;
+        sum += value;
+        buckets[bucketOf(value)]++;
+        valueCounts.merge(value, 1L, RunningStatistics::sumOrNullWhenZero);
+    }
+
+    public synchronized void remove(Integer value) {
+        if (value == null) {
+            return;
+        }
+        count--;
+        sum -= value;
+        buckets[bucketOf(value)]--;
+        valueCounts.merge(value, -1L, RunningStatistics::sumOrNullWhenZero);
+    }
+
+    public synchronized ColumnStatistics summary() {
+        List<HistogramBucket> histogram = new ArrayList<>(buckets.length);
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            Integer from = bucket == 0 ? null : bucket * bucketWidth;
+            Integer to = bucket == buckets.length - 1 ? null : (bucket + 1) * bucketWidth;
+            histogram.add(new HistogramBucket(from, to, buckets[bucket]));
+        }
+        return new ColumnStatistics(count,
+                sum,
+                firstCounted(valueCounts),
+                firstCounted(valueCounts.descendingMap()),
+                count == 0 ? null : (double) sum / count,
+                histogram);
+    }
+
+    //Every value's adds and removes have cancelled out, which also zeroes count, sum and buckets
+    public synchronized boolean isEmpty() {
+        return valueCounts.isEmpty();
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        sum = 0;
+        valueCounts.clear();
+        Arrays.fill(buckets, 0L);
+    }
+
+    private static Long sumOrNullWhenZero(Long current, Long delta) {
+        long valueCount = current + delta;
+        return valueCount == 0 ? null : valueCount;
+    }
+
+    //Skips values whose remove has landed before their add
+    private static Integer firstCounted(NavigableMap<Integer, Long> counts) {
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            if (entry.getValue() > 0) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private int bucketOf(int value) {
+        if (value < 0) {
+            return 0;
+        }
+        return (int) Math.min(value / bucketWidth, buckets.length - 1);
+    }
+}
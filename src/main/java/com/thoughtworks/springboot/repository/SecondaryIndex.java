@@ -0,0 +1,61 @@
+package com.thoughtworks.springboot.repository;
+
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Non-unique index from a key column (e.g. companyId) to the ids of the rows holding that key.
+ * Each key's ids are kept sorted so lookups return rows in the same order as the table.
+ * Rows with a null key are not indexed.
+ */
+public class SecondaryIndex {
+
+    private final ConcurrentHashMap<Long, NavigableSet<Long>> idsByKey = new ConcurrentHashMap<>();
+
+    public void add(Long key, Long id) {
+        if (key == null) {
+            return;
+        }
+        idsByKey.compute(key, (indexKey, ids) -> {
+            NavigableSet<Long> keyIds = ids == null ? new ConcurrentSkipListSet<>() : ids;
+            keyIds.add(id);
+            return keyIds;
+        });
+    }
+
+    public void remove(Long key, Long id) {
+        if (key == null) {
+            return;
+        }
+        idsByKey.computeIfPresent(key, (indexKey, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    public void move(Long oldKey, Long newKey, Long id) {
+        if (Objects.equals(oldKey, newKey)) {
+            add(newKey, id);
+            return;
+        }
+        remove(oldKey, id);
+        add(newKey, id);
+    }
+
+    public NavigableSet<Long> get(Long key) {
+        NavigableSet<Long> ids = key == null ? null : idsByKey.get(key);
+        return ids == null ? Collections.emptyNavigableSet() : Collections.unmodifiableNavigableSet(ids);
+    }
+
+    public Set<Long> keys() {
+        return Collections.unmodifiableSet(idsByKey.keySet());
+    }
+
+    public void clear() {
+        idsByKey.clear();
+    }
+}
@@ -0,0 +1,48 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.CursorPage;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Thread-safe row storage keyed by id and iterated in id order.
+ * Implementations must never throw ConcurrentModificationException while writers are active.
+ */
+public interface Table<T> {
+
+    T get(Long id);
+
+    //Inserts or replaces the row, returning the previous one if any
+    T put(T row);
+
+    //Implementations may override to take their write lock once for the whole batch
+    default void putAll(List<T> rows) {
+        rows.forEach(this::put);
+    }
+
+    //Applies the update atomically with respect to other writers of the same row, returns null when absent
+    T computeIfPresent(Long id, UnaryOperator<T> update);
+
+    //Compare-and-swap: stores next only if the row is still the one read as expected, false if another write won
+    boolean replace(T expected, T next);
+
+    T remove(Long id);
+
+    //Compare-and-delete counterpart of replace: removes the row only if it is still the one read as expected
+    boolean remove(T expected);
+
+    Stream<T> stream();
+
+    CursorPage<T> pageAfter(Long afterId, int limit);
+
+    int size();
+
+    void clear();
+
+    default List<T> snapshot() {
+        return stream().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.thoughtworks.springboot.service;
+
+import com.thoughtworks.springboot.model.CompanyDeletionStatus;
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes companies in two steps. The company row is removed (and logged) before the request returns,
+ * then a single background worker detaches its employees through the company index, at most batchSize
+ * per task. Each batch is resubmitted as a new task, so several deletions share the worker in turns.
+ */
+@Service
+public class CompanyDeletionService {
+    private static final Logger log = LoggerFactory.getLogger(CompanyDeletionService.class);
+
+    private final CompanyRepository companyRepository;
+    private final EmployeeService employeeService;
+    private final int batchSize;
+    private final Map<Long, CompanyDeletionStatus> statuses = new ConcurrentHashMap<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "company-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public CompanyDeletionService(CompanyRepository companyRepository, EmployeeService employeeService,
+                                  @Value("${company.deletion.batch-size:500}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("company.deletion.batch-size must be positive.");
+        }
+        this.companyRepository = companyRepository;
+        this.employeeService = employeeService;
+        this.batchSize = batchSize;
+        //A restart can interrupt a cascade after the company row is gone, pick those companies up again
+        for (Long companyId : employeeService.findReferencedCompanyIds()) {
+            if (!companyRepository.exists(companyId)) {
+                start(companyId);
+            }
+        }
+    }
+
+    public CompanyDeletionStatus requestDeletion(Long companyId) {
+        companyRepository.deleteCompanyById(companyId);
+        return start(companyId);
+    }
+
+    public CompanyDeletionStatus getStatus(Long companyId) {
+        return statuses.get(companyId);
+    }
+
+    private CompanyDeletionStatus start(Long companyId) {
+        CompanyDeletionStatus status = new CompanyDeletionStatus(companyId);
+        statuses.put(companyId, status);
+        worker.execute(() -> detachBatch(status));
+        return status;
+    }
+
+    private void detachBatch(CompanyDeletionStatus status) {
+        try {
+            int detached = employeeService.detachFromCompany(status.getCompanyId(), batchSize);
+            status.addDetached(detached);
+            if (employeeService.findReferencedCompanyIds().contains(status.getCompanyId())) {
+                worker.execute(() -> detachBatch(status));
+            } else {
+                status.complete();
+            }
+        } catch (RuntimeException ex) {
+            log.error("Cascading delete of company {} failed", status.getCompanyId(), ex);
+            status.fail(ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+}
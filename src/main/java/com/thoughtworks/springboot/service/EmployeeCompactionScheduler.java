@@ -0,0 +1,30 @@
+package com.thoughtworks.springboot.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Periodically moves employees that have been inactive for longer than the retention window out of the
+ * live table into the cold archive, so scans and indexes stop paying for soft-deleted rows.
+ */
+@Component
+@ConditionalOnProperty(prefix = "employee.compaction", name = "enabled", havingValue = "true")
+public class EmployeeCompactionScheduler {
+    private final EmployeeService employeeService;
+    private final Duration retention;
+
+    public EmployeeCompactionScheduler(EmployeeService employeeService,
+                                       @Value("${employee.compaction.retention:P30D}") Duration retention) {
+        this.employeeService = employeeService;
+        this.retention = retention;
+    }
+
+    @Scheduled(initialDelayString = "${employee.compaction.interval:PT1H}", fixedDelayString = "${employee.compaction.interval:PT1H}")
+    public void compact() {
+        employeeService.compactInactive(retention);
+    }
+}
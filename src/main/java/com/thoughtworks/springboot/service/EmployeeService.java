@@ -1,54 +1,257 @@
 package com.thoughtworks.springboot.service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.thoughtworks.springboot.exception.EmployeeCreateException;
 import com.thoughtworks.springboot.exception.EmployeeNotFoundException;
+import com.thoughtworks.springboot.metrics.MetricsConfiguration;
+import com.thoughtworks.springboot.model.AgeBand;
+import com.thoughtworks.springboot.model.BatchImportResult;
+import com.thoughtworks.springboot.model.BatchRowFailure;
+import com.thoughtworks.springboot.model.CacheStatistics;
+import com.thoughtworks.springboot.model.CursorPage;
 import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeQuery;
+import com.thoughtworks.springboot.model.EmployeeQueryResult;
+import com.thoughtworks.springboot.model.EmployeeStatisticsSummary;
+import com.thoughtworks.springboot.model.EmployeeViolation;
+import com.thoughtworks.springboot.model.Gender;
+import com.thoughtworks.springboot.model.ValidationResult;
+import com.thoughtworks.springboot.persistence.SnapshotStore;
+import com.thoughtworks.springboot.persistence.WriteAheadLog;
+import com.thoughtworks.springboot.repository.CompanyRepository;
 import com.thoughtworks.springboot.repository.EmployeeRepository;
+import com.thoughtworks.springboot.utility.EmployeeProjection;
+import com.thoughtworks.springboot.utility.EmployeeValidator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class EmployeeService {
+    public static final String EMPLOYEES_BY_ID_CACHE = "employeesById";
+    public static final String EMPLOYEE_QUERIES_CACHE = "employeeQueries";
 
     private final EmployeeRepository employeeRepository;
+    //Only asked whether a company exists, so new employees never join an unknown or deleted one
+    private final CompanyRepository companyRepository;
+    private final Cache employeesById;
+    //Gender query results keyed by gender, active flag and age band, see queryKey
+    private final Cache employeeQueries;
+    private final Map<EmployeeViolation, Counter> validationFailures = new EnumMap<>(EmployeeViolation.class);
 
     public EmployeeService(EmployeeRepository employeeRepository) {
+        this(employeeRepository, new NoOpCacheManager());
+    }
+
+    public EmployeeService(EmployeeRepository employeeRepository, CompanyRepository companyRepository) {
+        this(employeeRepository, companyRepository, new NoOpCacheManager(), new CompositeMeterRegistry());
+    }
+
+    public EmployeeService(EmployeeRepository employeeRepository, CacheManager cacheManager) {
+        this(employeeRepository, cacheManager, new CompositeMeterRegistry());
+    }
+
+    public EmployeeService(EmployeeRepository employeeRepository, CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this(employeeRepository, new CompanyRepository(employeeRepository, WriteAheadLog.disabled(), SnapshotStore.disabled()),
+                cacheManager, meterRegistry);
+    }
+
+    @Autowired
+    public EmployeeService(EmployeeRepository employeeRepository, CompanyRepository companyRepository,
+                           CacheManager cacheManager, MeterRegistry meterRegistry) {
 
         this.employeeRepository = employeeRepository;
+        this.companyRepository = companyRepository;
+        this.employeesById = cacheManager.getCache(EMPLOYEES_BY_ID_CACHE);
+        this.employeeQueries = cacheManager.getCache(EMPLOYEE_QUERIES_CACHE);
+        //Registered once up front, a failing request only increments
+        for (EmployeeViolation violation : EmployeeViolation.values()) {
+            validationFailures.put(violation, Counter.builder(MetricsConfiguration.VALIDATION_FAILURES)
+                    .tag("violation", violation.name())
+                    .register(meterRegistry));
+        }
     }
 
     public Employee create(Employee employee) {
         validateAge(employee);
-        return employeeRepository.insert(employee);
+        if (isCompanyUnknown(employee)) {
+            throw new EmployeeCreateException(EmployeeViolation.COMPANY_UNKNOWN.getMessage());
+        }
+        return insert(employee);
     }
 
+    //For callers that already ran validate on the employee, e.g. the controller, so it is not checked twice
+    public Employee create(Employee employee, ValidationResult validation) {
+        if (!validation.isValid()) {
+            throw new EmployeeCreateException(validation.getMessage());
+        }
+        return insert(employee);
+    }
+
+    private Employee insert(Employee employee) {
+        Employee createdEmployee = employeeRepository.insert(employee);
+        evictQueries(createdEmployee);
+        return createdEmployee;
+    }
+
+    //Null rows stand for entries that could not be parsed, they are reported like any other invalid row
+    public BatchImportResult createBatch(List<Employee> employees) {
+        List<Employee> validEmployees = new ArrayList<>(employees.size());
+        List<BatchRowFailure> failures = new ArrayList<>();
+        ValidationResult validation = new ValidationResult();
+        for (int row = 0; row < employees.size(); row++) {
+            Employee employee = employees.get(row);
+            if (employee == null) {
+                failures.add(new BatchRowFailure(row, "Row could not be parsed as an employee."));
+                continue;
+            }
+            if (validate(employee, validation).isValid()) {
+                validEmployees.add(employee);
+            } else {
+                failures.add(new BatchRowFailure(row, validation.getMessage()));
+            }
+        }
+        List<Employee> createdEmployees = employeeRepository.insertAll(validEmployees);
+        createdEmployees.stream()
+                .map(Employee::getGender)
+                .map(Gender::from)
+                .distinct()
+                .forEach(this::evictQueries);
+        return new BatchImportResult(createdEmployees, failures);
+    }
+
+    //The repository deactivates the row it reads, so a concurrent update is never rolled back
     public boolean delete(Long employeeId) {
-        Employee existingEmployee = getExistingEmployee(employeeId);
-        existingEmployee.setIsActive(false);
-        employeeRepository.updateEmployee(existingEmployee);
+        evict(employeeRepository.deactivate(employeeId));
         return true;
     }
 
     public Employee update(Employee updatedEmployee) {
+        return update(updatedEmployee, null);
+    }
+
+    //expectedVersion comes from If-Match, null means last writer wins
+    public Employee update(Employee updatedEmployee, Long expectedVersion) {
         Employee existingEmployee = getExistingEmployee(updatedEmployee.getId());
-        return employeeRepository.updateEmployee(existingEmployee);
+        Employee employee = expectedVersion == null
+                ? employeeRepository.updateEmployee(updatedEmployee)
+                : employeeRepository.updateEmployee(updatedEmployee, expectedVersion);
+        evict(existingEmployee);
+        return employee;
     }
 
     public List<Employee> listAllEmployees() {
         return employeeRepository.listAll();
     }
 
+    public List<Employee> listAllEmployees(boolean includeInactive) {
+        List<Employee> employees = listAllEmployees();
+        return includeInactive ? withArchived(employees, employeeRepository.listArchived()) : employees;
+    }
+
+    public Stream<Employee> streamAllEmployees() {
+        return employeeRepository.streamAll();
+    }
+
     public Employee findEmployeeById(Long id) {
-        Employee employee = employeeRepository.findById(id);
-        if (employee == null) {
-            throw new EmployeeNotFoundException("Employee not found with id: " + id);
+        return getOrLoad(employeesById, id, () -> {
+            Employee employee = employeeRepository.findById(id);
+            if (employee == null) {
+                throw new EmployeeNotFoundException("Employee not found with id: " + id);
+            }
+            return employee;
+        });
+    }
+
+    //Archived rows are only reached on request, and never cached: they are read rarely and never change
+    public Employee findEmployeeById(Long id, boolean includeInactive) {
+        try {
+            return findEmployeeById(id);
+        } catch (EmployeeNotFoundException ex) {
+            Employee archived = includeInactive ? employeeRepository.findArchivedById(id) : null;
+            if (archived == null) {
+                throw ex;
+            }
+            return archived;
         }
-        return employee;
     }
 
     public List<Employee> findEmployeeByGender(String gender) {
-        return employeeRepository.findByGender(gender);
+        Gender normalizedGender = Gender.from(gender);
+        //Unknown genders never match, there is nothing worth caching for them
+        if (normalizedGender == null) {
+            return employeeRepository.findByGender(gender);
+        }
+        return getOrLoad(employeeQueries, queryKey(normalizedGender, null, null),
+                () -> Collections.unmodifiableList(employeeRepository.findByGender(gender)));
+    }
+
+    public List<Employee> findEmployeeByGender(String gender, Boolean isActive, AgeBand ageBand) {
+        if (isActive == null && ageBand == null) {
+            return findEmployeeByGender(gender);
+        }
+        Gender normalizedGender = Gender.from(gender);
+        if (normalizedGender == null) {
+            return employeeRepository.findByFilters(gender, isActive, ageBand);
+        }
+        return getOrLoad(employeeQueries, queryKey(normalizedGender, isActive, ageBand),
+                () -> Collections.unmodifiableList(employeeRepository.findByFilters(gender, isActive, ageBand)));
+    }
+
+    public List<Employee> findEmployeeByGender(String gender, Boolean isActive, AgeBand ageBand, boolean includeInactive) {
+        List<Employee> employees = findEmployeeByGender(gender, isActive, ageBand);
+        return includeInactive ? withArchived(employees, employeeRepository.findArchivedByFilters(gender, isActive, ageBand)) : employees;
+    }
+
+    private static List<Employee> withArchived(List<Employee> employees, List<Employee> archived) {
+        if (archived.isEmpty()) {
+            return employees;
+        }
+        List<Employee> merged = new ArrayList<>(employees.size() + archived.size());
+        merged.addAll(employees);
+        merged.addAll(archived);
+        merged.sort(Comparator.comparing(Employee::getId));
+        //A row being compacted is archived just before it leaves the table; the stable sort keeps the live copy first
+        List<Employee> distinct = new ArrayList<>(merged.size());
+        for (Employee employee : merged) {
+            if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).getId().equals(employee.getId())) {
+                distinct.add(employee);
+            }
+        }
+        return distinct;
+    }
+
+    public List<Employee> searchByName(String query, int limit) {
+        return employeeRepository.searchByName(query, limit);
+    }
+
+    //Not cached: the parameter space is open-ended, repeat hits would be rare
+    public EmployeeQueryResult query(EmployeeQuery query) {
+        query.validate();
+        if (query.getFields() != null) {
+            EmployeeProjection.validate(query.getFields());
+        }
+        return employeeRepository.query(query);
     }
 
     public List<Employee> findEmployeesByPage(Long pageNumber, Long pageSize) {
@@ -59,9 +262,145 @@ public class EmployeeService {
         return employeeRepository.listByPage(pageNumber, pageSize);
     }
 
+    //Reactive reads stream straight from the repository, the caches only ever hold whole materialized results
+    public Flux<Employee> listAllEmployeesReactive() {
+        return employeeRepository.listAllReactive();
+    }
+
+    public Mono<Employee> findEmployeeByIdReactive(Long id) {
+        return employeeRepository.findByIdReactive(id);
+    }
+
+    public Flux<Employee> findEmployeeByGenderReactive(String gender, Boolean isActive, AgeBand ageBand) {
+        return employeeRepository.findByFiltersReactive(gender, isActive, ageBand);
+    }
+
+    public Flux<Employee> findEmployeesByPageReactive(Long pageNumber, Long pageSize) {
+        if (pageNumber <= 0 || pageSize <= 0) {
+            return Flux.error(new IllegalArgumentException("Page number and page size must be greater than zero."));
+        }
+        return employeeRepository.listByPageReactive(pageNumber, pageSize);
+    }
+
+    public CursorPage<Employee> findEmployeesAfter(Long afterId, Integer limit) {
+        return employeeRepository.listAfter(afterId, limit);
+    }
+
+    //Detached rows change companyId, so their cached copies go too
+    public int detachFromCompany(Long companyId, int limit) {
+        List<Employee> detached = employeeRepository.detachFromCompany(companyId, limit);
+        detached.forEach(this::evict);
+        return detached.size();
+    }
+
+    //Compacted rows leave the lookup caches with the table, default reads then 404 for them
+    public int compactInactive(Duration retention) {
+        List<Employee> compacted = employeeRepository.compactInactive(retention);
+        compacted.forEach(this::evict);
+        return compacted.size();
+    }
+
+    public Set<Long> findReferencedCompanyIds() {
+        return employeeRepository.findReferencedCompanyIds();
+    }
+
+    public EmployeeStatisticsSummary getEmployeeStatistics() {
+        return employeeRepository.getStatistics();
+    }
+
+    //Only Caffeine caches record statistics, other cache providers are left out
+    public List<CacheStatistics> getCacheStatistics() {
+        return Stream.of(employeesById, employeeQueries)
+                .filter(cache -> cache instanceof CaffeineCache)
+                .map(cache -> (CaffeineCache) cache)
+                .map(cache -> {
+                    CacheStats stats = cache.getNativeCache().stats();
+                    return new CacheStatistics(cache.getName(), cache.getNativeCache().estimatedSize(), stats.hitCount(),
+                            stats.missCount(), stats.evictionCount(), stats.hitRate());
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void evict(Employee employee) {
+        employeesById.evict(employee.getId());
+        evictQueries(employee);
+    }
+
+    private void evictQueries(Employee employee) {
+        evictQueries(Gender.from(employee.getGender()));
+    }
+
+    //A row only appears in results for its own gender, so only those few keys can be stale
+    private void evictQueries(Gender gender) {
+        if (gender == null) {
+            return;
+        }
+        Boolean[] activeFilters = {null, Boolean.TRUE, Boolean.FALSE};
+        for (Boolean isActive : activeFilters) {
+            employeeQueries.evict(queryKey(gender, isActive, null));
+            for (AgeBand ageBand : AgeBand.values()) {
+                employeeQueries.evict(queryKey(gender, isActive, ageBand));
+            }
+        }
+    }
+
+    private static String queryKey(Gender gender, Boolean isActive, AgeBand ageBand) {
+        return gender + ":" + isActive + ":" + ageBand;
+    }
+
+    //Loads through the cache so an eviction racing with the load waits for it instead of being lost
+    private static <T> T getOrLoad(Cache cache, Object key, Callable<T> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (Cache.ValueRetrievalException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    public ValidationResult validate(Employee employee) {
+        return validate(employee, new ValidationResult());
+    }
+
+    //Everything create checks, reported without throwing; result is cleared first so it can be reused
+    public ValidationResult validate(Employee employee, ValidationResult result) {
+        EmployeeValidator.validate(employee, result);
+        if (!result.has(EmployeeViolation.AGE_NOT_POSITIVE) && employee.hasInvalidAge()) {
+            result.add(EmployeeViolation.AGE_OUT_OF_RANGE);
+        }
+        if (isCompanyUnknown(employee)) {
+            result.add(EmployeeViolation.COMPANY_UNKNOWN);
+        }
+        return countFailures(result);
+    }
+
+    //No company is allowed; a deleted one is unknown, its employees are being detached from it
+    private boolean isCompanyUnknown(Employee employee) {
+        return employee.getCompanyId() != null && !companyRepository.exists(employee.getCompanyId());
+    }
+
+    //What an update checks: everything but the 18-65 rule, which only applies on create
+    public ValidationResult validateUpdate(Employee employee) {
+        return countFailures(EmployeeValidator.validate(employee, new ValidationResult()));
+    }
+
+    private ValidationResult countFailures(ValidationResult result) {
+        if (result.isValid()) {
+            return result;
+        }
+        validationFailures.forEach((violation, counter) -> {
+            if (result.has(violation)) {
+                counter.increment();
+            }
+        });
+        return result;
+    }
+
     private static void validateAge(Employee employee) {
         if (employee.hasInvalidAge()) {
-            throw new EmployeeCreateException("Employee must be 18-65");
+            throw new EmployeeCreateException(EmployeeViolation.AGE_OUT_OF_RANGE.getMessage());
         }
     }
 
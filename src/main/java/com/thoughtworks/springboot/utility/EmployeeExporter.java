@@ -0,0 +1,74 @@
+package com.thoughtworks.springboot.utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.springboot.model.Employee;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes employees one row at a time through a fixed-size buffer, so memory use and time-to-first-byte
+ * do not depend on how many rows are exported.
+ */
+public class EmployeeExporter {
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,name,age,gender,salary,isActive,companyId";
+
+    private final ObjectMapper objectMapper;
+
+    public EmployeeExporter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public static boolean isSupported(String format) {
+        return NDJSON.equalsIgnoreCase(format) || CSV.equalsIgnoreCase(format);
+    }
+
+    public void export(Stream<Employee> employees, String format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        boolean csv = CSV.equalsIgnoreCase(format);
+        if (csv) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        Iterator<Employee> rows = employees.iterator();
+        while (rows.hasNext()) {
+            Employee employee = rows.next();
+            writer.write(csv ? toCsvLine(employee) : objectMapper.writeValueAsString(employee));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static String toCsvLine(Employee employee) {
+        return employee.getId() + ","
+                + escapeCsv(employee.getName()) + ","
+                + nullToEmpty(employee.getAge()) + ","
+                + escapeCsv(employee.getGender()) + ","
+                + nullToEmpty(employee.getSalary()) + ","
+                + nullToEmpty(employee.getIsActive()) + ","
+                + nullToEmpty(employee.getCompanyId());
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String nullToEmpty(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
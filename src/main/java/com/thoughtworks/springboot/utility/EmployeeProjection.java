@@ -0,0 +1,41 @@
+package com.thoughtworks.springboot.utility;
+
+import com.thoughtworks.springboot.model.Employee;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+//Field subsets of an employee for ?fields=, keyed by the same names the full JSON uses
+public class EmployeeProjection {
+    private static final Map<String, Function<Employee, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("id", Employee::getId);
+        FIELDS.put("name", Employee::getName);
+        FIELDS.put("age", Employee::getAge);
+        FIELDS.put("gender", Employee::getGender);
+        FIELDS.put("salary", Employee::getSalary);
+        FIELDS.put("isActive", Employee::getIsActive);
+        FIELDS.put("companyId", Employee::getCompanyId);
+        FIELDS.put("version", Employee::getVersion);
+    }
+
+    public static void validate(List<String> fields) {
+        for (String field : fields) {
+            if (!FIELDS.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field '" + field + "', expected any of " + FIELDS.keySet() + ".");
+            }
+        }
+    }
+
+    //Fields come out in the order they were asked for, nulls included so every row has the same keys
+    public static Map<String, Object> project(Employee employee, List<String> fields) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (String field : fields) {
+            projected.put(field, FIELDS.get(field).apply(employee));
+        }
+        return projected;
+    }
+}
@@ -2,38 +2,54 @@ package com.thoughtworks.springboot.utility;
 
 import com.thoughtworks.springboot.exception.EmployeeValidationException;
 import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeViolation;
+import com.thoughtworks.springboot.model.ValidationResult;
 
 public class EmployeeValidator {
 
+    //Checks first and only builds a result to describe a failure, so a valid employee allocates nothing
     public static void validateEmployee(Employee employee) {
-        validateName(employee);
-        validateAge(employee);
-        validateGender(employee);
-        validateSalary(employee);
+        if (!isValid(employee)) {
+            throw new EmployeeValidationException(validate(employee, new ValidationResult()).getMessage());
+        }
     }
 
-    private static void validateSalary(Employee employee) {
-        if (employee.getSalary() <= 0) {
-            throw new EmployeeValidationException("Salary must be a positive number.");
-        }
+    public static boolean isValid(Employee employee) {
+        return !isNameMissing(employee) && !isAgeNotPositive(employee) && !isGenderInvalid(employee) && !isSalaryNotPositive(employee);
     }
 
-    private static void validateGender(Employee employee) {
-        if (employee.getGender() == null || !employee.getGender().equalsIgnoreCase("Male")
-                && !employee.getGender().equalsIgnoreCase("Female")) {
-            throw new EmployeeValidationException("Gender must be 'Male' or 'Female'.");
+    //Collects every violation instead of stopping at the first, result is cleared before use
+    public static ValidationResult validate(Employee employee, ValidationResult result) {
+        result.clear();
+        if (isNameMissing(employee)) {
+            result.add(EmployeeViolation.NAME_MISSING);
+        }
+        if (isAgeNotPositive(employee)) {
+            result.add(EmployeeViolation.AGE_NOT_POSITIVE);
         }
+        if (isGenderInvalid(employee)) {
+            result.add(EmployeeViolation.GENDER_INVALID);
+        }
+        if (isSalaryNotPositive(employee)) {
+            result.add(EmployeeViolation.SALARY_NOT_POSITIVE);
+        }
+        return result;
     }
 
-    private static void validateAge(Employee employee) {
-        if (employee.getAge() <= 0) {
-            throw new EmployeeValidationException("Age must be a positive integer.");
-        }
+    private static boolean isSalaryNotPositive(Employee employee) {
+        return employee.getSalary() == null || employee.getSalary() <= 0;
     }
 
-    private static void validateName(Employee employee) {
-        if (employee.getName() == null || employee.getName().isEmpty()) {
-            throw new EmployeeValidationException("Name cannot be null or empty.");
-        }
+    private static boolean isGenderInvalid(Employee employee) {
+        return employee.getGender() == null || !employee.getGender().equalsIgnoreCase("Male")
+                && !employee.getGender().equalsIgnoreCase("Female");
+    }
+
+    private static boolean isAgeNotPositive(Employee employee) {
+        return employee.getAge() == null || employee.getAge() <= 0;
+    }
+
+    private static boolean isNameMissing(Employee employee) {
+        return employee.getName() == null || employee.getName().isEmpty();
     }
 }
@@ -0,0 +1,30 @@
+package com.thoughtworks.springboot.utility;
+
+import com.thoughtworks.springboot.exception.VersionConflictException;
+
+//Strong ETags derived from entity versions, e.g. version 3 is served as "3"
+public class EntityTags {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    //Version an If-Match header requires, null when the header is absent or "*" and any version will do.
+    //Weak tags and tag lists cannot name a single version, so they never match
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith(WEAK_PREFIX) || tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new VersionConflictException("If-Match must be a single strong entity tag.");
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException ex) {
+            throw new VersionConflictException("If-Match does not name a version of this resource.");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.thoughtworks.springboot.controller;
+
+import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CompanyApiTest {
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private MockMvc mockMvcClient;
+
+    @Test
+    void should_return_page_and_next_cursor_when_get_companies_by_given_cursor_and_limit() throws Exception {
+        Company acme = companyRepository.addCompany(new Company(null, "Acme"));
+        Company globex = companyRepository.addCompany(new Company(null, "Globex"));
+
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/companies")
+                        .param("after", String.valueOf(acme.getId() - 1))
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id").value(acme.getId()))
+                .andExpect(jsonPath("$.nextCursor").value(acme.getId()));
+
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/companies")
+                        .param("after", String.valueOf(acme.getId()))
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(globex.getId()));
+    }
+
+    @Test
+    void should_return_400_bad_request_when_get_companies_by_cursor_given_limit_not_positive() throws Exception {
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/companies")
+                        .param("limit", "-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Limit must be greater than zero."));
+    }
+}
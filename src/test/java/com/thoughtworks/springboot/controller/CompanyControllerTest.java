@@ -1,8 +1,10 @@
 package com.thoughtworks.springboot.controller;
 
 import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.model.CompanyDeletionStatus;
 import com.thoughtworks.springboot.model.Employee;
 import com.thoughtworks.springboot.repository.CompanyRepository;
+import com.thoughtworks.springboot.service.CompanyDeletionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -10,13 +12,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 //TODO Should be Service and API
@@ -28,6 +31,9 @@ class CompanyControllerTest {//HAPPY CASE ONLY
     @Mock
     private CompanyRepository companyRepository;
 
+    @Mock
+    private CompanyDeletionService companyDeletionService;
+
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -52,9 +58,9 @@ class CompanyControllerTest {//HAPPY CASE ONLY
         Company expectedCompany = new Company(companyId, "Company A");
 
         when(companyRepository.findById(companyId)).thenReturn(expectedCompany);
-        Company result = companyController.findCompanyById(companyId);
+        ResponseEntity<Company> result = companyController.findCompanyById(companyId, mock(WebRequest.class));
 
-        assertEquals(expectedCompany, result);
+        assertEquals(expectedCompany, result.getBody());
     }
 
     @Test
@@ -105,19 +111,22 @@ class CompanyControllerTest {//HAPPY CASE ONLY
         Company updatedCompany = new Company(companyId, "Updated Company");
 
         when(companyRepository.updateCompanyById(companyId, updatedCompany)).thenReturn(updatedCompany);
-        ResponseEntity<Object> response = companyController.updateCompanyById(companyId, updatedCompany);
+        ResponseEntity<Object> response = companyController.updateCompanyById(companyId, updatedCompany, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(updatedCompany, response.getBody());
     }
 
     @Test
-    void given_existing_company_id_when_deleteCompanyById_then_return_no_content() {
+    void given_existing_company_id_when_deleteCompanyById_then_return_accepted_with_status_location() {
         Long companyId = 1L;
+        CompanyDeletionStatus status = new CompanyDeletionStatus(companyId);
 
-        doNothing().when(companyRepository).deleteCompanyById(companyId);
-        ResponseEntity<Void> response = companyController.deleteCompanyById(companyId);
+        when(companyDeletionService.requestDeletion(companyId)).thenReturn(status);
+        ResponseEntity<CompanyDeletionStatus> response = companyController.deleteCompanyById(companyId);
 
-        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/companies/1/deletion", response.getHeaders().getLocation().toString());
+        assertEquals(status, response.getBody());
     }
 }
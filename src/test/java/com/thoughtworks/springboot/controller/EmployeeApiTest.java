@@ -9,12 +9,21 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.time.Duration;
+import java.util.List;
+
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -27,12 +36,17 @@ class EmployeeApiTest {
     @Autowired
     private MockMvc mockMvcClient;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     EmployeeApiTest() {
     }
 
     @BeforeEach
     void cleanUpEmployeeData() {
         employeeRepository.cleanUpEmployeeData();
+        //Rows are seeded straight into the repository, so lookups cached by an earlier test would go stale
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
     }
 
     @Test
@@ -98,9 +112,20 @@ class EmployeeApiTest {
                 .andExpect(jsonPath("$.salary").value(newEmployee.getSalary()));
     }
 
+    @Test
+    void should_return_400_with_every_violation_when_perform_post_employee_given_invalid_employee() throws Exception {
+        Employee invalidEmployee = new Employee("", 17, "Unknown", 0);
+
+        mockMvcClient.perform(MockMvcRequestBuilders.post("/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(invalidEmployee)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.valid").value(false))
+                .andExpect(jsonPath("$.violations", hasSize(4)));
+    }
+
     @Test
     void should_return_updated_employee_by_given_id_when_perform_put_employee() throws Exception {
-        //TODO Failing Test, employee not getting update
         Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
         Employee updatedEmployee = new Employee(johnDoe.getId(), "John Doe", 69, "Male", 426942);
 
@@ -115,6 +140,37 @@ class EmployeeApiTest {
                 .andExpect(jsonPath("$.salary").value(updatedEmployee.getSalary()));
     }
 
+    @Test
+    void should_return_304_when_perform_get_employee_given_current_etag() throws Exception {
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        String eTag = mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/" + johnDoe.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/" + johnDoe.getId()).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void should_bump_version_and_reject_stale_if_match_when_perform_put_employee() throws Exception {
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        String update = new ObjectMapper().writeValueAsString(new Employee(johnDoe.getId(), "John Doe", 43, "Male", 700000));
+
+        mockMvcClient.perform(MockMvcRequestBuilders.put("/employees/" + johnDoe.getId())
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(update))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.version").value(2));
+        mockMvcClient.perform(MockMvcRequestBuilders.put("/employees/" + johnDoe.getId())
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(update))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void should_return_204_when_perform_delete_employee_by_given_id() throws Exception {
         Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
@@ -148,6 +204,70 @@ class EmployeeApiTest {
                 .andExpect(jsonPath("$[1].salary").value(101010));
     }
 
+    @Test
+    void should_return_ranked_name_matches_when_perform_get_employee_search_given_prefix() throws Exception {
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        employeeRepository.insert(new Employee("Jane Doe", 30, "Female", 101010));
+        Employee maryJohnson = employeeRepository.insert(new Employee("Mary Johnson", 35, "Female", 5000));
+
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/search").param("q", "joh"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(johnDoe.getId()))
+                .andExpect(jsonPath("$[1].id").value(maryJohnson.getId()));
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/search").param("q", "doe").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void should_return_projected_sorted_matches_when_perform_get_employee_query_given_filters_and_fields() throws Exception {
+        employeeRepository.insert(new Employee("John Doe", 42, "Male", 30000));
+        employeeRepository.insert(new Employee("Jane Doe", 30, "Female", 10000));
+        employeeRepository.insert(new Employee("Jim Doe", 35, "Male", 20000));
+
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/query")
+                        .param("gender", "male")
+                        .param("minSalary", "15000")
+                        .param("sort", "-salary")
+                        .param("fields", "name,salary"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-Plan", "BITMAP_INDEX"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name").value("John Doe"))
+                .andExpect(jsonPath("$[0].salary").value(30000))
+                .andExpect(jsonPath("$[0].id").doesNotExist())
+                .andExpect(jsonPath("$[1].name").value("Jim Doe"));
+    }
+
+    @Test
+    void should_return_400_bad_request_when_perform_get_employee_query_given_unknown_sort_key() throws Exception {
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/query").param("sort", "password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void should_reach_compacted_employee_only_with_includeInactive_when_perform_get_employees_given_archived_row() throws Exception {
+        employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        Employee janeDoe = employeeRepository.insert(new Employee("Jane Doe", 30, "Female", 101010));
+        Employee inactiveJaneDoe = new Employee(janeDoe.getId(), "Jane Doe", 30, "Female", 101010);
+        inactiveJaneDoe.setIsActive(false);
+        employeeRepository.updateEmployee(inactiveJaneDoe);
+        employeeRepository.compactInactive(Duration.ZERO);
+
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees"))
+                .andExpect(jsonPath("$", hasSize(1)));
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees").param("includeInactive", "true"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].isActive").value(false));
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/" + janeDoe.getId()))
+                .andExpect(status().isNotFound());
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/" + janeDoe.getId()).param("includeInactive", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Jane Doe"));
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees").param("gender", "Female").param("includeInactive", "true"))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
     @Test
     void should_return_404_not_found_when_perform_get_employee_given_a_nonexistent_pageNumber() throws Exception {
         Long nonExistentPageNumber = 99L;
@@ -158,4 +278,106 @@ class EmployeeApiTest {
                         .param("pageSize", String.valueOf(pageSize)))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void should_return_page_and_next_cursor_when_get_employees_by_given_cursor_and_limit() throws Exception {
+        employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        Employee janeDoe = employeeRepository.insert(new Employee("Jane Doe", 69, "Female", 101010));
+        Employee jimDoe = employeeRepository.insert(new Employee("Jim Doe", 30, "Male", 5000));
+
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees")
+                        .param("after", "1")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id").value(janeDoe.getId()))
+                .andExpect(jsonPath("$.nextCursor").value(janeDoe.getId()));
+
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees")
+                        .param("after", String.valueOf(janeDoe.getId()))
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id").value(jimDoe.getId()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void should_return_400_bad_request_when_get_employees_by_cursor_given_limit_not_positive() throws Exception {
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees")
+                        .param("after", "1")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Limit must be greater than zero."));
+    }
+
+    @Test
+    void should_return_salary_and_age_statistics_when_perform_get_employee_stats() throws Exception {
+        employeeRepository.insert(new Employee("John Doe", 42, "Male", 30000));
+        employeeRepository.insert(new Employee("Jane Doe", 24, "Female", 10000));
+
+        mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.salary.sum").value(40000))
+                .andExpect(jsonPath("$.salary.min").value(10000))
+                .andExpect(jsonPath("$.salary.max").value(30000))
+                .andExpect(jsonPath("$.salary.mean").value(20000.0))
+                .andExpect(jsonPath("$.age.histogram[2].count").value(1))
+                .andExpect(jsonPath("$.age.histogram[4].count").value(1));
+    }
+
+    @Test
+    void should_create_valid_rows_and_report_invalid_ones_when_perform_post_employee_batch() throws Exception {
+        List<Employee> employees = List.of(
+                new Employee("John Doe", 42, "Male", 696969),
+                new Employee("Jane Doe", 17, "Female", 101010),
+                new Employee("Jim Doe", 30, "Unknown", 5000),
+                new Employee("Jill Doe", 30, "Female", 5000));
+
+        mockMvcClient.perform(MockMvcRequestBuilders.post("/employees/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(employees)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created", hasSize(2)))
+                .andExpect(jsonPath("$.created[0].id").value(1L))
+                .andExpect(jsonPath("$.created[1].id").value(2L))
+                .andExpect(jsonPath("$.created[1].name").value("Jill Doe"))
+                .andExpect(jsonPath("$.failures", hasSize(2)))
+                .andExpect(jsonPath("$.failures[0].row").value(1))
+                .andExpect(jsonPath("$.failures[1].row").value(2));
+    }
+
+    @Test
+    void should_report_unparseable_and_incomplete_lines_when_perform_post_employee_batch_given_ndjson() throws Exception {
+        String ndjson = "{\"name\":\"John Doe\",\"age\":42,\"gender\":\"Male\",\"salary\":696969}\n"
+                + "not json\n"
+                + "{\"name\":\"x\"}\n"
+                + "{\"name\":\"Jane Doe\",\"age\":30,\"gender\":\"Female\",\"salary\":101010}\n";
+
+        mockMvcClient.perform(MockMvcRequestBuilders.post("/employees/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created", hasSize(2)))
+                .andExpect(jsonPath("$.failures", hasSize(2)))
+                .andExpect(jsonPath("$.failures[0].row").value(1))
+                .andExpect(jsonPath("$.failures[1].row").value(2));
+    }
+
+    @Test
+    void should_stream_all_employees_as_csv_when_perform_get_employee_export() throws Exception {
+        employeeRepository.insert(new Employee("Doe, John", 42, "Male", 696969));
+        employeeRepository.insert(new Employee("Jane Doe", 69, "Female", 101010));
+
+        MvcResult exportResult = mockMvcClient.perform(MockMvcRequestBuilders.get("/employees/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvcClient.perform(asyncDispatch(exportResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,name,age,gender,salary,isActive,companyId\n"
+                        + "1,\"Doe, John\",42,Male,696969,true,\n"
+                        + "2,Jane Doe,69,Female,101010,true,\n"));
+    }
 }
@@ -0,0 +1,59 @@
+package com.thoughtworks.springboot.controller;
+
+import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest
+class ReactiveCompanyApiTest {
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private ReactiveCompanyController reactiveCompanyController;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(reactiveCompanyController).build();
+    }
+
+    @Test
+    void should_return_404_when_get_reactive_company_employees_given_deleted_company() {
+        Company deleted = companyRepository.addCompany(new Company(null, "Deleted"));
+        companyRepository.deleteCompanyById(deleted.getId());
+
+        webTestClient.get().uri("/reactive/companies/" + deleted.getId() + "/employees")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void should_stream_requested_page_when_get_reactive_companies_by_page_given_valid_page() {
+        companyRepository.addCompany(new Company(null, "Acme"));
+        companyRepository.addCompany(new Company(null, "Globex"));
+
+        webTestClient.get().uri("/reactive/companies?pageNumber=1&pageSize=2")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Company.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void should_return_400_bad_request_when_get_reactive_companies_by_page_given_page_number_zero() {
+        webTestClient.get().uri("/reactive/companies?pageNumber=0&pageSize=2")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
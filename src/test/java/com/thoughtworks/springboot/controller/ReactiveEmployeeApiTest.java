@@ -0,0 +1,53 @@
+package com.thoughtworks.springboot.controller;
+
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class ReactiveEmployeeApiTest {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ReactiveEmployeeController reactiveEmployeeController;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.cleanUpEmployeeData();
+        webTestClient = WebTestClient.bindToController(reactiveEmployeeController).build();
+    }
+
+    @Test
+    void should_stream_employees_of_gender_as_ndjson_when_get_reactive_employees_given_gender() {
+        Employee janeDoe = employeeRepository.insert(new Employee("Jane Doe", 42, "Female", 101010));
+        employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+
+        webTestClient.get().uri("/reactive/employees?gender=Female")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Employee.class)
+                .hasSize(1)
+                .value(employees -> assertEquals(janeDoe.getId(), employees.get(0).getId()));
+    }
+
+    @Test
+    void should_return_404_when_get_reactive_employee_given_a_nonexistent_id() {
+        webTestClient.get().uri("/reactive/employees/99")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,139 @@
+package com.thoughtworks.springboot.controller;
+
+import com.thoughtworks.springboot.SpringBootApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Run with ./gradlew loadTest, excluded from the regular test task
+@Tag("load")
+class VirtualThreadLoadTest {
+    private static final int CLIENTS = 800;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    //Each client stalls halfway through its request body, the server thread reading it stalls with it
+    private static final long CLIENT_STALL_MILLIS = 50;
+    private static final int PLATFORM_THREADS = 200;
+    private static final String BODY = "{\"name\":\"Load\",\"age\":30,\"gender\":\"Female\",\"salary\":5000}";
+
+    @Test
+    void should_serve_slow_clients_when_perform_post_employee_given_platform_and_virtual_request_threads() throws Exception {
+        LoadReport platform = run(false);
+        LoadReport virtual = run(true);
+
+        System.out.println("platform threads (" + PLATFORM_THREADS + "): " + platform);
+        System.out.println("virtual threads: " + virtual);
+        assertEquals(0, platform.failures);
+        assertEquals(0, virtual.failures);
+    }
+
+    private static LoadReport run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootApplication.class)
+                .properties("server.port=0",
+                        "server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "spring.threads.virtual.enabled=" + virtualThreads)
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            //Warm up so JIT and class loading are not measured
+            runClients(port, 50, 5);
+            return runClients(port, CLIENTS, REQUESTS_PER_CLIENT);
+        }
+    }
+
+    private static LoadReport runClients(int port, int clients, int requestsPerClient) throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<long[]>> results = new ArrayList<>(clients);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                results.add(executor.submit(() -> {
+                    long[] latencies = new long[requestsPerClient];
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        long requestStart = System.nanoTime();
+                        if (postSlowly(port) != 201) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - requestStart;
+                    }
+                    return latencies;
+                }));
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long[] latencies = new long[clients * requestsPerClient];
+        int offset = 0;
+        for (Future<long[]> result : results) {
+            long[] clientLatencies = result.get();
+            System.arraycopy(clientLatencies, 0, latencies, offset, clientLatencies.length);
+            offset += clientLatencies.length;
+        }
+        Arrays.sort(latencies);
+        return new LoadReport(latencies, elapsedNanos, failures.get());
+    }
+
+    private static int postSlowly(int port) throws IOException, InterruptedException {
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        String head = "POST /employees HTTP/1.1\r\n"
+                + "Host: localhost:" + port + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n";
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(head.getBytes(StandardCharsets.US_ASCII));
+            output.write(body, 0, body.length / 2);
+            output.flush();
+            TimeUnit.MILLISECONDS.sleep(CLIENT_STALL_MILLIS);
+            output.write(body, body.length / 2, body.length - body.length / 2);
+            output.flush();
+            BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            String statusLine = input.readLine();
+            return statusLine == null ? -1 : Integer.parseInt(statusLine.split(" ")[1]);
+        }
+    }
+
+    private static class LoadReport {
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+        private final int failures;
+
+        LoadReport(long[] sortedLatencies, long elapsedNanos, int failures) {
+            this.sortedLatencies = sortedLatencies;
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        double throughput() {
+            return sortedLatencies.length / (elapsedNanos / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %.0f req/s, p50 %.1f ms, p99 %.1f ms, %d failures",
+                    sortedLatencies.length, throughput(), percentileMillis(0.50), percentileMillis(0.99), failures);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.thoughtworks.springboot.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.springboot.exception.EmployeeNotFoundException;
+import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import com.thoughtworks.springboot.repository.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_restore_snapshot_and_log_tail_when_restart_given_snapshot_taken() {
+        WriteAheadLog writeAheadLog = openLog();
+        SnapshotStore snapshotStore = openSnapshots();
+        EmployeeRepository employeeRepository = new EmployeeRepository(true, writeAheadLog, snapshotStore);
+        employeeRepository.cleanUpEmployeeData();
+        Employee beforeSnapshot = employeeRepository.addEmployee(new Employee(null, "Before", 30, "Female", 8000));
+        employeeRepository.writeSnapshot(writeAheadLog.checkpoint());
+        Employee afterSnapshot = employeeRepository.addEmployee(new Employee(null, "After", 40, "Male", 9000));
+        writeAheadLog.close();
+
+        EmployeeRepository restarted = new EmployeeRepository(true, openLog(), openSnapshots());
+
+        assertEquals(2, restarted.listAll().size());
+        assertEquals("Before", restarted.findById(beforeSnapshot.getId()).getName());
+        assertEquals("After", restarted.findById(afterSnapshot.getId()).getName());
+        assertThrows(EmployeeNotFoundException.class, () -> restarted.findById(5L));
+    }
+
+    @Test
+    void should_keep_compacted_rows_archived_when_restart_given_compactions_before_and_after_snapshot() {
+        WriteAheadLog writeAheadLog = openLog();
+        EmployeeRepository employeeRepository = new EmployeeRepository(false, writeAheadLog, openSnapshots());
+        employeeRepository.cleanUpEmployeeData();
+        Employee beforeSnapshot = employeeRepository.addEmployee(new Employee(null, "Before", 30, "Female", 8000));
+        employeeRepository.deactivate(beforeSnapshot.getId());
+        employeeRepository.compactInactive(Duration.ZERO);
+        employeeRepository.writeSnapshot(writeAheadLog.checkpoint());
+        Employee afterSnapshot = employeeRepository.addEmployee(new Employee(null, "After", 40, "Male", 9000));
+        employeeRepository.deactivate(afterSnapshot.getId());
+        employeeRepository.compactInactive(Duration.ZERO);
+        Employee kept = employeeRepository.addEmployee(new Employee(null, "Kept", 50, "Male", 7000));
+        writeAheadLog.close();
+
+        EmployeeRepository restarted = new EmployeeRepository(false, openLog(), openSnapshots());
+
+        assertEquals(List.of(kept.getId()), restarted.listAll().stream().map(Employee::getId).collect(Collectors.toList()));
+        assertEquals(2, restarted.archivedSize());
+        assertEquals("Before", restarted.findArchivedById(beforeSnapshot.getId()).getName());
+        assertEquals("After", restarted.findArchivedById(afterSnapshot.getId()).getName());
+        assertEquals(1L, restarted.getStatistics().getCount());
+        assertTrue(restarted.compactInactive(Duration.ZERO).isEmpty());
+    }
+
+    @Test
+    void should_keep_deactivation_time_when_restart_given_rows_deactivated_before_and_after_snapshot() throws InterruptedException {
+        WriteAheadLog writeAheadLog = openLog();
+        EmployeeRepository employeeRepository = new EmployeeRepository(true, writeAheadLog, openSnapshots());
+        employeeRepository.cleanUpEmployeeData();
+        Employee beforeSnapshot = employeeRepository.deactivate(employeeRepository.addEmployee(new Employee(null, "Before", 30, "Female", 8000)).getId());
+        employeeRepository.writeSnapshot(writeAheadLog.checkpoint());
+        Employee afterSnapshot = employeeRepository.deactivate(employeeRepository.addEmployee(new Employee(null, "After", 40, "Male", 9000)).getId());
+        writeAheadLog.close();
+        Thread.sleep(50);
+
+        EmployeeRepository restarted = new EmployeeRepository(true, openLog(), openSnapshots());
+
+        assertEquals(beforeSnapshot.getInactiveSince(), restarted.findById(beforeSnapshot.getId()).getInactiveSince());
+        assertEquals(afterSnapshot.getInactiveSince(), restarted.findById(afterSnapshot.getId()).getInactiveSince());
+        //Both were deactivated before the restart, a retention clock restarted with it would keep them
+        assertEquals(2, restarted.compactInactive(Duration.ofMillis(40)).size());
+    }
+
+    @Test
+    void should_drop_covered_log_segments_when_snapshot_given_rolled_segments() throws IOException {
+        WriteAheadLogProperties properties = logProperties();
+        properties.setSegmentSizeBytes(256);
+        WriteAheadLog writeAheadLog = new WriteAheadLog(properties, new ObjectMapper());
+        CompanyRepository companyRepository = new CompanyRepository(writeAheadLog, openSnapshots());
+        for (int i = 0; i < 20; i++) {
+            companyRepository.addCompany(new Company(null, "Company " + i));
+        }
+        long segmentsBeforeSnapshot = countSegments();
+        long sequence = writeAheadLog.checkpoint();
+        companyRepository.writeSnapshot(sequence);
+        writeAheadLog.deleteSegmentsUpTo(sequence);
+
+        assertEquals(1, countSegments());
+        assertTrue(segmentsBeforeSnapshot > 1);
+        Company renamed = companyRepository.updateCompanyById(6L, new Company(null, "Renamed"));
+        writeAheadLog.close();
+
+        CompanyRepository restarted = new CompanyRepository(new WriteAheadLog(properties, new ObjectMapper()), openSnapshots());
+
+        assertEquals(25, restarted.listAll().size());
+        assertEquals("Renamed", restarted.findById(renamed.getId()).getName());
+        assertEquals(26L, restarted.addCompany(new Company(null, "Next")).getId());
+    }
+
+    @Test
+    void should_give_rows_the_initial_version_when_restart_given_version_1_snapshot() throws IOException {
+        ByteBuffer snapshot = ByteBuffer.allocate(256)
+                .putInt(0x534E4150).putInt(1)
+                .putLong(0L).putLong(7L).putLong(1L)
+                .putLong(7L).putInt(4).put("Kept".getBytes(StandardCharsets.UTF_8))
+                .putInt(30).putInt(4).put("Male".getBytes(StandardCharsets.UTF_8))
+                .putInt(8000).put((byte) 1).putLong(2L);
+        Files.createDirectories(directory.resolve("snapshot"));
+        Files.write(directory.resolve("snapshot").resolve(String.format("employees-%020d.snap", 0L)),
+                Arrays.copyOf(snapshot.array(), snapshot.position()));
+
+        //Both storages, the columnar one would keep a missing version as 0
+        for (boolean columnar : new boolean[]{false, true}) {
+            EmployeeRepository restarted = new EmployeeRepository(columnar, WriteAheadLog.disabled(), openSnapshots());
+
+            Employee kept = restarted.findById(7L);
+            assertEquals("Kept", kept.getName());
+            assertEquals(2L, kept.getCompanyId());
+            assertEquals(1L, kept.getVersion());
+            assertEquals(2L, restarted.updateEmployee(new Employee(7L, "Kept", 31, "Male", 9000), 1L).getVersion());
+            assertEquals(8L, restarted.addEmployee(new Employee(null, "Next", 25, "Male", 1000)).getId());
+        }
+    }
+
+    @Test
+    void should_serve_initial_version_and_bump_it_when_updateCompanyById_given_company_from_version_1_snapshot() throws IOException {
+        ByteBuffer snapshot = ByteBuffer.allocate(64)
+                .putInt(0x534E4150).putInt(1)
+                .putLong(0L).putLong(2L).putLong(1L)
+                .putLong(2L).putInt(3).put("Old".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(directory.resolve("snapshot"));
+        Files.write(directory.resolve("snapshot").resolve(String.format("companies-%020d.snap", 0L)),
+                Arrays.copyOf(snapshot.array(), snapshot.position()));
+
+        CompanyRepository restarted = new CompanyRepository(WriteAheadLog.disabled(), openSnapshots());
+
+        assertEquals(1L, restarted.findById(2L).getVersion());
+        Company renamed = restarted.updateCompanyById(2L, new Company(null, "Renamed"), 1L);
+        assertEquals(2L, renamed.getVersion());
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> segments = Files.list(directory.resolve("wal"))) {
+            return segments.count();
+        }
+    }
+
+    private WriteAheadLog openLog() {
+        return new WriteAheadLog(logProperties(), new ObjectMapper());
+    }
+
+    private WriteAheadLogProperties logProperties() {
+        WriteAheadLogProperties properties = new WriteAheadLogProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.resolve("wal").toString());
+        return properties;
+    }
+
+    private SnapshotStore openSnapshots() {
+        SnapshotProperties properties = new SnapshotProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.resolve("snapshot").toString());
+        return new SnapshotStore(properties);
+    }
+}
@@ -0,0 +1,205 @@
+package com.thoughtworks.springboot.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.springboot.exception.PersistenceException;
+import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import com.thoughtworks.springboot.repository.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_restore_employee_changes_when_restart_given_binary_log() {
+        WriteAheadLog writeAheadLog = open(WriteAheadLogProperties.Format.BINARY);
+        EmployeeRepository employeeRepository = new EmployeeRepository(false, writeAheadLog);
+        Employee created = employeeRepository.addEmployee(new Employee(null, "Replayed", 30, "Female", 8000));
+        Employee update = new Employee(created.getId(), "Replayed", 31, "Female", 9000);
+        employeeRepository.updateEmployee(update);
+        writeAheadLog.close();
+
+        EmployeeRepository restarted = new EmployeeRepository(false, open(WriteAheadLogProperties.Format.BINARY));
+
+        Employee restored = restarted.findById(created.getId());
+        assertEquals(31, restored.getAge());
+        assertEquals(9000, restored.getSalary());
+        assertEquals(created.getId() + 1, restarted.addEmployee(new Employee(null, "Next", 25, "Male", 1000)).getId());
+    }
+
+    @Test
+    void should_restore_company_changes_when_restart_given_json_log() {
+        WriteAheadLog writeAheadLog = open(WriteAheadLogProperties.Format.JSON);
+        CompanyRepository companyRepository = new CompanyRepository(writeAheadLog);
+        Company created = companyRepository.addCompany(new Company(null, "Replayed"));
+        companyRepository.updateCompanyById(created.getId(), new Company(null, "Renamed"));
+        companyRepository.deleteCompanyById(1L);
+        writeAheadLog.close();
+
+        CompanyRepository restarted = new CompanyRepository(open(WriteAheadLogProperties.Format.JSON));
+
+        assertEquals("Renamed", restarted.findById(created.getId()).getName());
+        assertFalse(restarted.listAll().stream().anyMatch(company -> company.getId() == 1L));
+    }
+
+    @Test
+    void should_give_employee_the_initial_version_when_replay_given_record_without_version() throws IOException {
+        //Both storages, the columnar one would keep a missing version as 0
+        for (boolean columnar : new boolean[]{false, true}) {
+            for (Path segment : segments()) {
+                Files.delete(segment);
+            }
+            Files.write(directory.resolve(String.format("wal-%020d.log", 1L)), ("{\"sequence\":1,\"type\":\"EMPLOYEE_PUT\",\"payload\":"
+                    + "{\"id\":7,\"name\":\"Unversioned\",\"age\":30,\"gender\":\"Male\",\"salary\":8000,\"isActive\":true}}\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            WriteAheadLog writeAheadLog = open(WriteAheadLogProperties.Format.JSON);
+            EmployeeRepository restarted = new EmployeeRepository(columnar, writeAheadLog);
+
+            assertEquals(1L, restarted.findById(7L).getVersion());
+            assertEquals(2L, restarted.updateEmployee(new Employee(7L, "Unversioned", 31, "Male", 9000), 1L).getVersion());
+            writeAheadLog.close();
+        }
+    }
+
+    @Test
+    void should_skip_torn_record_when_replay_given_truncated_segment() throws IOException {
+        WriteAheadLog writeAheadLog = open(WriteAheadLogProperties.Format.BINARY);
+        EmployeeRepository employeeRepository = new EmployeeRepository(false, writeAheadLog);
+        Employee kept = employeeRepository.addEmployee(new Employee(null, "Kept", 30, "Male", 8000));
+        Employee torn = employeeRepository.addEmployee(new Employee(null, "Torn", 30, "Male", 8000));
+        writeAheadLog.close();
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        EmployeeRepository restarted = new EmployeeRepository(false, open(WriteAheadLogProperties.Format.BINARY));
+
+        assertEquals("Kept", restarted.findById(kept.getId()).getName());
+        assertFalse(restarted.listAll().stream().anyMatch(employee -> employee.getId().equals(torn.getId())));
+    }
+
+    @Test
+    void should_keep_records_logged_after_restart_when_replay_given_torn_tail_in_earlier_segment() throws IOException {
+        WriteAheadLog writeAheadLog = open(WriteAheadLogProperties.Format.BINARY);
+        Employee kept = new EmployeeRepository(false, writeAheadLog).addEmployee(new Employee(null, "Kept", 30, "Male", 8000));
+        new EmployeeRepository(false, writeAheadLog).addEmployee(new Employee(null, "Torn", 30, "Male", 8000));
+        writeAheadLog.close();
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        WriteAheadLog restartedLog = open(WriteAheadLogProperties.Format.BINARY);
+        Employee afterRestart = new EmployeeRepository(false, restartedLog).addEmployee(new Employee(null, "After restart", 30, "Male", 8000));
+        restartedLog.close();
+
+        EmployeeRepository restarted = new EmployeeRepository(false, open(WriteAheadLogProperties.Format.BINARY));
+
+        assertEquals("Kept", restarted.findById(kept.getId()).getName());
+        assertEquals("After restart", restarted.findById(afterRestart.getId()).getName());
+    }
+
+    @Test
+    void should_fail_replay_when_restart_given_damaged_record_followed_by_later_segment() throws IOException {
+        WriteAheadLogProperties properties = properties(WriteAheadLogProperties.Format.BINARY);
+        //One record per segment
+        properties.setSegmentSizeBytes(1);
+        WriteAheadLog writeAheadLog = new WriteAheadLog(properties, new ObjectMapper());
+        EmployeeRepository employeeRepository = new EmployeeRepository(false, writeAheadLog);
+        for (int i = 0; i < 3; i++) {
+            employeeRepository.addEmployee(new Employee(null, "Logged " + i, 30, "Male", 8000));
+        }
+        writeAheadLog.close();
+        Path damaged = segments().get(1);
+        byte[] bytes = Files.readAllBytes(damaged);
+        bytes[bytes.length - 2] ^= 0x7f;
+        Files.write(damaged, bytes);
+
+        assertThrows(PersistenceException.class, () -> new EmployeeRepository(false, new WriteAheadLog(properties, new ObjectMapper())));
+    }
+
+    @Test
+    void should_skip_record_without_allocating_its_length_when_replay_given_damaged_length() throws IOException {
+        WriteAheadLog writeAheadLog = open(WriteAheadLogProperties.Format.BINARY);
+        Employee damaged = new EmployeeRepository(false, writeAheadLog).addEmployee(new Employee(null, "Damaged", 30, "Male", 8000));
+        writeAheadLog.close();
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, Integer.MAX_VALUE - 16), 0);
+        }
+
+        EmployeeRepository restarted = new EmployeeRepository(false, open(WriteAheadLogProperties.Format.BINARY));
+
+        assertFalse(restarted.listAll().stream().anyMatch(employee -> employee.getId().equals(damaged.getId())));
+    }
+
+    @Test
+    void should_reject_mutations_when_log_write_failed_given_interval_fsync() throws Exception {
+        WriteAheadLogProperties properties = properties(WriteAheadLogProperties.Format.BINARY);
+        properties.setFsyncPolicy(WriteAheadLogProperties.FsyncPolicy.INTERVAL);
+        //Every record rolls over to a new segment, which cannot be created once the directory is gone
+        properties.setSegmentSizeBytes(1);
+        Path logDirectory = directory.resolve("wal");
+        properties.setDirectory(logDirectory.toString());
+        WriteAheadLog writeAheadLog = new WriteAheadLog(properties, new ObjectMapper());
+        EmployeeRepository employeeRepository = new EmployeeRepository(false, writeAheadLog);
+        employeeRepository.addEmployee(new Employee(null, "Logged", 30, "Male", 8000));
+        try (Stream<Path> segments = Files.list(logDirectory)) {
+            for (Path segment : segments.collect(Collectors.toList())) {
+                Files.delete(segment);
+            }
+        }
+        Files.delete(logDirectory);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        int sizeBeforeFailure;
+        while (true) {
+            sizeBeforeFailure = employeeRepository.size();
+            try {
+                employeeRepository.addEmployee(new Employee(null, "Unlogged", 30, "Male", 8000));
+            } catch (PersistenceException ex) {
+                break;
+            }
+            assertTrue(System.nanoTime() < deadline, "Mutations were still accepted after the log failed");
+            Thread.sleep(10);
+        }
+
+        assertEquals(sizeBeforeFailure, employeeRepository.size());
+        assertThrows(PersistenceException.class, () -> employeeRepository.updateEmployee(new Employee(1L, "Ilnear", 43, "Male", 10000)));
+        writeAheadLog.close();
+    }
+
+    private WriteAheadLog open(WriteAheadLogProperties.Format format) {
+        return new WriteAheadLog(properties(format), new ObjectMapper());
+    }
+
+    private WriteAheadLogProperties properties(WriteAheadLogProperties.Format format) {
+        WriteAheadLogProperties properties = new WriteAheadLogProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setFormat(format);
+        return properties;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarEmployeeTableTest {
+
+    @Test
+    void should_return_equal_view_when_get_given_stored_employee() {
+        ColumnarEmployeeTable table = new ColumnarEmployeeTable();
+        Employee employee = new Employee(3L, "Jane Doe", 42, "Female", 101010);
+        employee.setCompanyId(7L);
+        employee.setIsActive(false);
+
+        table.put(employee);
+        Employee view = table.get(3L);
+
+        assertNotSame(employee, view);
+        assertEquals(3L, view.getId());
+        assertEquals("Jane Doe", view.getName());
+        assertEquals(42, view.getAge());
+        assertEquals("Female", view.getGender());
+        assertEquals(101010, view.getSalary());
+        assertEquals(7L, view.getCompanyId());
+        assertFalse(view.getIsActive());
+    }
+
+    @Test
+    void should_keep_non_canonical_gender_and_missing_company_when_get_given_stored_employee() {
+        ColumnarEmployeeTable table = new ColumnarEmployeeTable();
+
+        table.put(new Employee(1L, "John Doe", 30, "mALE", 5000));
+
+        assertEquals("mALE", table.get(1L).getGender());
+        assertNull(table.get(1L).getCompanyId());
+    }
+
+    @Test
+    void should_remove_only_unchanged_row_when_remove_given_expected_version() {
+        ColumnarEmployeeTable table = new ColumnarEmployeeTable();
+        Employee employee = new Employee(1L, "John Doe", 30, "Male", 5000);
+        employee.setVersion(2L);
+        table.put(employee);
+        Employee stale = table.get(1L);
+        stale.setVersion(1L);
+
+        assertFalse(table.remove(stale));
+        assertTrue(table.remove(table.get(1L)));
+        assertNull(table.get(1L));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void should_replace_and_remove_row_when_given_view_of_row_stored_without_version() {
+        ColumnarEmployeeTable table = new ColumnarEmployeeTable();
+        table.put(new Employee(1L, "John Doe", 30, "Male", 5000));
+        Employee next = new Employee(1L, "John Doe", 31, "Male", 6000);
+        next.setVersion(1L);
+
+        assertTrue(table.replace(table.get(1L), next));
+        assertEquals(31, table.get(1L).getAge());
+        assertEquals(1L, table.get(1L).getVersion());
+
+        table.put(new Employee(2L, "Jane Doe", 25, "Female", 4000));
+        assertTrue(table.remove(table.get(2L)));
+        assertNull(table.get(2L));
+    }
+
+    @Test
+    void should_treat_ids_outside_the_slots_as_absent_when_reading_or_removing() {
+        ColumnarEmployeeTable table = new ColumnarEmployeeTable();
+        table.put(new Employee(1L, "John Doe", 30, "Male", 5000));
+        Employee outOfRange = new Employee(Integer.MAX_VALUE + 1L, "Jane Doe", 25, "Female", 4000);
+
+        for (Long id : new Long[]{-5L, Integer.MAX_VALUE + 1L}) {
+            assertNull(table.get(id));
+            assertNull(table.remove(id));
+            assertNull(table.computeIfPresent(id, employee -> employee));
+        }
+        assertFalse(table.replace(outOfRange, outOfRange));
+        assertFalse(table.remove(outOfRange));
+        assertEquals(List.of(1L), table.pageAfter(-5L, 10).getItems().stream().map(Employee::getId).collect(Collectors.toList()));
+        assertTrue(table.pageAfter((long) Integer.MAX_VALUE, 10).getItems().isEmpty());
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void should_return_rows_in_id_order_when_pageAfter_given_cursor() {
+        ColumnarEmployeeTable table = new ColumnarEmployeeTable();
+        for (long id = 1; id <= 5; id++) {
+            table.put(new Employee(id, "Employee " + id, 30, "Male", 5000));
+        }
+        table.remove(3L);
+
+        List<Employee> page = table.pageAfter(1L, 2).getItems();
+
+        assertEquals(2L, page.get(0).getId());
+        assertEquals(4L, page.get(1).getId());
+        assertEquals(4, table.size());
+    }
+
+    @Test
+    void should_size_every_column_to_the_highest_id_when_holding_dense_rows() {
+        int rowCount = 200_000;
+        ColumnarEmployeeTable table = new ColumnarEmployeeTable();
+        for (long id = 1; id <= rowCount; id++) {
+            table.put(new Employee(id, "Employee", 30, id % 2 == 0 ? "Male" : "Female", 1000));
+        }
+
+        //One primitive slot per id, grown by half at a time, no per-row objects
+        for (int length : table.columnLengths()) {
+            assertTrue(length > rowCount && length <= (rowCount + 1) * 3 / 2, "column length " + length + " for " + rowCount + " rows");
+        }
+        assertEquals(rowCount, table.size());
+    }
+}
@@ -0,0 +1,54 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.Employee;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Run with ./gradlew loadTest, excluded from the regular test task: heap measured around System.gc() is only indicative,
+//so the comparison leaves a wide margin
+@Tag("load")
+class ColumnarHeapLoadTest {
+    private static final int ROW_COUNT = 200_000;
+
+    @Test
+    void should_retain_less_than_half_the_heap_of_object_storage_when_holding_same_rows_given_columnar_storage() {
+        long objectBytes = measureRetainedBytes(() -> fill(new InMemoryTable<>(Employee::getId)));
+        long columnarBytes = measureRetainedBytes(() -> fill(new ColumnarEmployeeTable()));
+
+        System.out.printf("%d rows: object storage %d bytes, columnar storage %d bytes%n", ROW_COUNT, objectBytes, columnarBytes);
+        //Columns cost a small fraction of the objects and map entries; half leaves room for GC noise
+        assertTrue(columnarBytes < objectBytes / 2,
+                "columnar storage retained " + columnarBytes + " bytes, object storage " + objectBytes + " bytes");
+    }
+
+    private static Table<Employee> fill(Table<Employee> table) {
+        String name = "Employee";
+        for (int i = 1; i <= ROW_COUNT; i++) {
+            Employee employee = new Employee((long) i, name, 20 + i % 40, i % 2 == 0 ? "Male" : "Female", 1000 + i);
+            employee.setCompanyId((long) (i % 100));
+            table.put(employee);
+        }
+        return table;
+    }
+
+    private static long measureRetainedBytes(Supplier<Table<Employee>> tableFactory) {
+        long before = usedHeapAfterGc();
+        Table<Employee> table = tableFactory.get();
+        long after = usedHeapAfterGc();
+        assertEquals(ROW_COUNT, table.size());
+        return after - before;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,59 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.Company;
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.persistence.SnapshotStore;
+import com.thoughtworks.springboot.persistence.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompanyRepositoryTest {
+
+    private final EmployeeRepository employeeRepository = new EmployeeRepository();
+    private final CompanyRepository companyRepository = new CompanyRepository(employeeRepository, WriteAheadLog.disabled(), SnapshotStore.disabled());
+
+    @Test
+    void should_return_only_company_employees_when_getEmployeesByCompanyId_given_company_with_employees() {
+        List<Employee> employees = companyRepository.getEmployeesByCompanyId(1L);
+
+        assertEquals(List.of(1L, 2L, 3L), employees.stream().map(Employee::getId).collect(Collectors.toList()));
+        assertTrue(employees.stream().allMatch(employee -> employee.getCompanyId().equals(1L)));
+    }
+
+    @Test
+    void should_return_empty_list_when_getEmployeesByCompanyId_given_company_without_employees() {
+        List<Employee> employees = companyRepository.getEmployeesByCompanyId(4L);
+
+        assertTrue(employees.isEmpty());
+    }
+
+    @Test
+    void should_see_live_employee_rows_when_getEmployeesByCompanyId_given_employee_added_through_employee_repository() {
+        Employee newEmployee = new Employee("Jane Doe", 30, "Female", 8000);
+        newEmployee.setCompanyId(4L);
+        Employee inserted = employeeRepository.insert(newEmployee);
+        employeeRepository.updateEmployee(new Employee(inserted.getId(), "Jane Doe", 31, "Female", 9000));
+
+        List<Employee> employees = companyRepository.getEmployeesByCompanyId(4L);
+
+        assertEquals(1, employees.size());
+        assertSame(employeeRepository.findById(inserted.getId()), employees.get(0));
+        assertEquals(9000, employees.get(0).getSalary());
+        assertEquals(1L, companyRepository.getEmployeeStatisticsByCompanyId(4L).getCount());
+    }
+
+    @Test
+    void should_find_company_by_new_name_only_when_searchByName_given_renamed_and_deleted_companies() {
+        companyRepository.updateCompanyById(1L, new Company(null, "Orient Overseas"));
+        companyRepository.deleteCompanyById(3L);
+
+        assertTrue(companyRepository.searchByName("oocl", 10).isEmpty());
+        assertEquals("Orient Overseas", companyRepository.searchByName("ori", 10).get(0).getName());
+        assertTrue(companyRepository.searchByName("cosco", 10).isEmpty());
+        assertEquals("Thoughtworks", companyRepository.searchByName("thougtworks", 10).get(0).getName());
+    }
+}
@@ -0,0 +1,25 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.AgeBand;
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.Gender;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmployeeBitmapIndexTest {
+
+    @Test
+    void should_reject_with_clear_error_and_keep_index_when_put_given_id_beyond_int_range() {
+        EmployeeBitmapIndex bitmapIndex = new EmployeeBitmapIndex();
+        bitmapIndex.put(new Employee(1L, "John Doe", 30, "Male", 1000));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> bitmapIndex.put(new Employee(EmployeeBitmapIndex.MAX_ID + 1, "Jane Doe", 30, "Male", 1000)));
+
+        assertTrue(exception.getMessage().contains(String.valueOf(EmployeeBitmapIndex.MAX_ID)));
+        assertEquals(1, bitmapIndex.select(Gender.MALE, null, (AgeBand) null).cardinality());
+    }
+}
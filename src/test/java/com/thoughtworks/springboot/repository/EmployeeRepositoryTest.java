@@ -0,0 +1,399 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.exception.EmployeeNotFoundException;
+import com.thoughtworks.springboot.exception.VersionConflictException;
+import com.thoughtworks.springboot.model.AgeBand;
+import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeQuery;
+import com.thoughtworks.springboot.model.EmployeeQueryResult;
+import com.thoughtworks.springboot.model.EmployeeStatisticsSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeRepositoryTest {
+
+    private EmployeeRepository employeeRepository;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository = new EmployeeRepository();
+        employeeRepository.cleanUpEmployeeData();
+    }
+
+    @Test
+    void should_find_inserted_employee_when_findById_given_its_id() {
+        employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        Employee janeDoe = employeeRepository.insert(new Employee("Jane Doe", 30, "Female", 101010));
+
+        Employee result = employeeRepository.findById(janeDoe.getId());
+
+        assertSame(janeDoe, result);
+    }
+
+    @Test
+    void should_find_updated_employee_when_findById_given_updated_employee() {
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        Employee updatedEmployee = new Employee(johnDoe.getId(), "John Doe", 43, "Male", 700000);
+
+        employeeRepository.updateEmployee(updatedEmployee);
+
+        assertEquals(43, employeeRepository.findById(johnDoe.getId()).getAge());
+        assertEquals(700000, employeeRepository.findById(johnDoe.getId()).getSalary());
+    }
+
+    @Test
+    void should_bump_version_and_reject_stale_version_when_updateEmployee_given_expected_version() {
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+
+        Employee updated = employeeRepository.updateEmployee(new Employee(johnDoe.getId(), "John Doe", 43, "Male", 700000), 1L);
+
+        assertEquals(2L, updated.getVersion());
+        assertThrows(VersionConflictException.class,
+                () -> employeeRepository.updateEmployee(new Employee(johnDoe.getId(), "John Doe", 44, "Male", 1000), 1L));
+        assertEquals(43, employeeRepository.findById(johnDoe.getId()).getAge());
+    }
+
+    @Test
+    void should_keep_latest_update_when_deactivate_given_employee_updated_after_it_was_read() {
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        //Another client updates the row after the caller last read it
+        employeeRepository.updateEmployee(new Employee(johnDoe.getId(), "John Doe", 43, "Male", 700000));
+
+        Employee deactivated = employeeRepository.deactivate(johnDoe.getId());
+
+        assertFalse(deactivated.getIsActive());
+        assertEquals(43, deactivated.getAge());
+        assertEquals(700000, deactivated.getSalary());
+        assertEquals(3L, deactivated.getVersion());
+        assertSame(deactivated, employeeRepository.deactivate(johnDoe.getId()));
+        assertThrows(EmployeeNotFoundException.class, () -> employeeRepository.deactivate(99L));
+    }
+
+    @Test
+    void should_emit_rows_only_as_requested_when_subscribing_to_listAllReactive() {
+        employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        employeeRepository.insert(new Employee("Jane Doe", 42, "Female", 101010));
+        employeeRepository.insert(new Employee("Jim Doe", 42, "Male", 5000));
+
+        StepVerifier.create(employeeRepository.listAllReactive(), 1)
+                .expectNextMatches(employee -> employee.getName().equals("John Doe"))
+                .thenRequest(2)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_throw_exception_when_findById_given_cleaned_up_data() {
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+
+        employeeRepository.cleanUpEmployeeData();
+
+        assertThrows(EmployeeNotFoundException.class, () -> employeeRepository.findById(johnDoe.getId()));
+    }
+
+    @Test
+    void should_return_matching_employees_when_findByFilters_given_gender_active_and_age_band() {
+        Employee janeDoe = employeeRepository.insert(new Employee("Jane Doe", 42, "Female", 101010));
+        Employee inactiveJane = employeeRepository.insert(new Employee("Jane Roe", 44, "female", 5000));
+        employeeRepository.insert(new Employee("Jill Doe", 25, "Female", 5000));
+        employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+        employeeRepository.updateEmployee(deactivated(inactiveJane));
+
+        List<Employee> result = employeeRepository.findByFilters("FEMALE", true, AgeBand.FROM_40_TO_49);
+
+        assertEquals(1, result.size());
+        assertEquals(janeDoe.getId(), result.get(0).getId());
+        assertEquals(3, employeeRepository.findByGender("female").size());
+    }
+
+    @Test
+    void should_track_active_employee_statistics_when_inserting_updating_and_deactivating() {
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 30000));
+        Employee janeDoe = employeeRepository.insert(new Employee("Jane Doe", 25, "Female", 10000));
+        employeeRepository.insert(new Employee("Jim Doe", 35, "Male", 20000));
+        employeeRepository.updateEmployee(new Employee(janeDoe.getId(), "Jane Doe", 26, "Female", 50000));
+        employeeRepository.updateEmployee(deactivated(johnDoe));
+
+        EmployeeStatisticsSummary statistics = employeeRepository.getStatistics();
+
+        assertEquals(2L, statistics.getCount());
+        assertEquals(70000L, statistics.getSalary().getSum());
+        assertEquals(20000, statistics.getSalary().getMin());
+        assertEquals(50000, statistics.getSalary().getMax());
+        assertEquals(35000.0, statistics.getSalary().getMean());
+        assertEquals(26, statistics.getAge().getMin());
+        assertEquals(1L, statistics.getAge().getHistogram().get(2).getCount());
+    }
+
+    @Test
+    void should_pick_index_or_scan_and_apply_filters_and_sort_when_query_given_employee_query() {
+        employeeRepository.insert(inCompany(new Employee("John Doe", 42, "Male", 30000), 1L));
+        employeeRepository.insert(inCompany(new Employee("Jane Doe", 25, "Female", 10000), 1L));
+        employeeRepository.insert(inCompany(new Employee("Jim Doe", 35, "Male", 20000), 2L));
+        employeeRepository.insert(inCompany(new Employee("Joe Doe", 58, "Male", 40000), 2L));
+
+        EmployeeQuery byCompany = new EmployeeQuery();
+        byCompany.setCompanyId(2L);
+        byCompany.setMinSalary(25000);
+        EmployeeQuery byAge = new EmployeeQuery();
+        byAge.setMinAge(30);
+        byAge.setMaxAge(45);
+        byAge.setSort(List.of("-salary"));
+        EmployeeQuery bySalary = new EmployeeQuery();
+        bySalary.setMaxSalary(20000);
+        bySalary.setSort(List.of("name"));
+        bySalary.setLimit(1);
+
+        EmployeeQueryResult companyResult = employeeRepository.query(byCompany);
+        EmployeeQueryResult ageResult = employeeRepository.query(byAge);
+        EmployeeQueryResult salaryResult = employeeRepository.query(bySalary);
+
+        assertEquals(EmployeeQueryResult.Plan.COMPANY_INDEX, companyResult.getPlan());
+        assertEquals(List.of("Joe Doe"), names(companyResult));
+        assertEquals(EmployeeQueryResult.Plan.BITMAP_INDEX, ageResult.getPlan());
+        assertEquals(List.of("John Doe", "Jim Doe"), names(ageResult));
+        assertEquals(EmployeeQueryResult.Plan.PARALLEL_SCAN, salaryResult.getPlan());
+        assertEquals(List.of("Jane Doe"), names(salaryResult));
+    }
+
+    @Test
+    void should_move_inactive_employee_out_of_table_and_indexes_when_compactInactive_given_retention_passed() {
+        Employee johnDoe = employeeRepository.insert(inCompany(new Employee("John Doe", 42, "Male", 30000), 1L));
+        employeeRepository.insert(inCompany(new Employee("Jim Doe", 35, "Male", 20000), 1L));
+        employeeRepository.updateEmployee(inCompany(deactivated(johnDoe), 1L));
+
+        assertTrue(employeeRepository.compactInactive(Duration.ofHours(1)).isEmpty());
+        List<Employee> compacted = employeeRepository.compactInactive(Duration.ZERO);
+
+        assertEquals(1, compacted.size());
+        assertThrows(EmployeeNotFoundException.class, () -> employeeRepository.findById(johnDoe.getId()));
+        assertEquals(1, employeeRepository.listAll().size());
+        assertEquals(1, employeeRepository.findByGender("Male").size());
+        assertEquals(1, employeeRepository.findByCompanyId(1L).size());
+        assertEquals(1L, employeeRepository.getStatistics().getCount());
+        Employee archived = employeeRepository.findArchivedById(johnDoe.getId());
+        assertEquals("John Doe", archived.getName());
+        assertFalse(archived.getIsActive());
+        assertEquals(2L, archived.getVersion());
+        assertEquals(1, employeeRepository.findArchivedByFilters("male", false, AgeBand.FROM_40_TO_49).size());
+        assertTrue(employeeRepository.findArchivedByFilters("male", true, null).isEmpty());
+        assertTrue(employeeRepository.compactInactive(Duration.ZERO).isEmpty());
+    }
+
+    @Test
+    void should_detach_company_employees_in_batches_when_detachFromCompany_given_batch_smaller_than_headcount() {
+        for (int i = 0; i < 3; i++) {
+            employeeRepository.insert(inCompany(new Employee("Employee " + i, 30, "Male", 1000), 1L));
+        }
+        employeeRepository.insert(inCompany(new Employee("Other", 30, "Female", 1000), 2L));
+
+        List<Employee> firstBatch = employeeRepository.detachFromCompany(1L, 2);
+
+        assertEquals(2, firstBatch.size());
+        assertEquals(1, employeeRepository.findByCompanyId(1L).size());
+        assertEquals(1L, employeeRepository.getStatisticsByCompanyId(1L).getCount());
+        assertNull(employeeRepository.findById(firstBatch.get(0).getId()).getCompanyId());
+        assertEquals(2L, employeeRepository.findById(firstBatch.get(0).getId()).getVersion());
+
+        assertEquals(1, employeeRepository.detachFromCompany(1L, 2).size());
+        assertTrue(employeeRepository.detachFromCompany(1L, 2).isEmpty());
+        assertFalse(employeeRepository.findReferencedCompanyIds().contains(1L));
+        assertTrue(employeeRepository.findReferencedCompanyIds().contains(2L));
+    }
+
+    @Test
+    void should_find_every_row_by_its_key_when_findById_given_table_with_many_rows() {
+        int tableSize = 10_000;
+        List<Employee> inserted = new ArrayList<>(tableSize);
+        for (int i = 0; i < tableSize; i++) {
+            inserted.add(employeeRepository.insert(new Employee("Employee " + i, 30, "Male", 1000 + i)));
+        }
+
+        for (Employee employee : inserted) {
+            assertSame(employee, employeeRepository.findById(employee.getId()));
+        }
+        assertEquals(tableSize, employeeRepository.size());
+        assertThrows(EmployeeNotFoundException.class, () -> employeeRepository.findById((long) tableSize + 1));
+        assertThrows(EmployeeNotFoundException.class, () -> employeeRepository.findById(null));
+    }
+
+    private static Employee deactivated(Employee employee) {
+        Employee inactiveEmployee = new Employee(employee.getId(), employee.getName(), employee.getAge(), employee.getGender(), employee.getSalary());
+        inactiveEmployee.setIsActive(false);
+        return inactiveEmployee;
+    }
+
+    private static List<String> names(EmployeeQueryResult result) {
+        return result.getEmployees().stream().map(Employee::getName).collect(Collectors.toList());
+    }
+
+    private static Employee inCompany(Employee employee, Long companyId) {
+        employee.setCompanyId(companyId);
+        return employee;
+    }
+
+    @Test
+    void should_not_lose_writes_or_throw_when_reading_and_writing_concurrently() throws InterruptedException {
+        int writerCount = 8;
+        int insertsPerWriter = 5_000;
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writerCount * 2);
+
+        for (int writer = 0; writer < writerCount; writer++) {
+            executor.submit(() -> runConcurrently(start, failures, () -> {
+                for (int i = 0; i < insertsPerWriter; i++) {
+                    Employee inserted = employeeRepository.insert(new Employee("Employee " + i, 30, "Male", 1000));
+                    employeeRepository.updateEmployee(new Employee(inserted.getId(), "Employee " + i, 30, "Male", 2000));
+                }
+            }));
+            executor.submit(() -> runConcurrently(start, failures, () -> {
+                for (int i = 0; i < insertsPerWriter / 10; i++) {
+                    employeeRepository.listByPage(1L, 50L);
+                    employeeRepository.findByGender("male");
+                    employeeRepository.listAll();
+                }
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(failures.isEmpty(), () -> "Concurrent access failed with " + failures.peek());
+        List<Employee> employees = employeeRepository.listAll();
+        assertEquals(writerCount * insertsPerWriter, employees.size());
+        assertEquals(writerCount * insertsPerWriter, employees.stream().map(Employee::getId).distinct().count());
+        assertTrue(employees.stream().allMatch(employee -> employee.getSalary() == 2000));
+    }
+
+    @Test
+    void should_apply_every_update_whole_when_updating_one_employee_concurrently() throws InterruptedException {
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 20, "Male", 20_000));
+        int writerCount = 8;
+        int updatesPerWriter = 2_000;
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writerCount + 1);
+
+        for (int writer = 0; writer < writerCount; writer++) {
+            int age = 20 + writer;
+            executor.submit(() -> runConcurrently(start, failures, () -> {
+                for (int i = 0; i < updatesPerWriter; i++) {
+                    employeeRepository.updateEmployee(new Employee(johnDoe.getId(), "John Doe", age, "Male", age * 1000));
+                }
+            }));
+        }
+        executor.submit(() -> runConcurrently(start, failures, () -> {
+            for (int i = 0; i < updatesPerWriter; i++) {
+                Employee seen = employeeRepository.findById(johnDoe.getId());
+                assertEquals(seen.getAge() * 1000, seen.getSalary(), "Saw a half-applied update");
+            }
+        }));
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(failures.isEmpty(), () -> "Concurrent update failed with " + failures.peek());
+        Employee updated = employeeRepository.findById(johnDoe.getId());
+        assertEquals(1L + writerCount * updatesPerWriter, updated.getVersion());
+        assertEquals(updated.getAge() * 1000, updated.getSalary());
+        assertEquals(1, employeeRepository.findByFilters("Male", true, AgeBand.of(updated.getAge())).size());
+    }
+
+    @Test
+    void should_keep_statistics_matching_rows_when_deactivating_rows_of_a_batch_still_being_inserted() throws InterruptedException {
+        int batchSize = 20_000;
+        List<Employee> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(new Employee("Employee " + i, 30, "Male", 1000));
+        }
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        executor.submit(() -> runConcurrently(start, failures, () -> employeeRepository.insertAll(batch)));
+        //Deactivates each row as soon as it is visible, racing the batch's own indexing of it
+        executor.submit(() -> runConcurrently(start, failures, () -> {
+            for (long id = 1; id <= batchSize; id++) {
+                while (true) {
+                    try {
+                        employeeRepository.deactivate(id);
+                        break;
+                    } catch (EmployeeNotFoundException notYetInserted) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+        }));
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(failures.isEmpty(), () -> "Concurrent batch failed with " + failures.peek());
+        assertEquals(0L, employeeRepository.getStatistics().getCount());
+        assertTrue(employeeRepository.findByFilters(null, true, null).isEmpty());
+    }
+
+    @Test
+    void should_find_every_row_in_table_or_archive_when_reading_during_compactInactive() throws InterruptedException {
+        int rowCount = 20_000;
+        List<Employee> batch = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            batch.add(new Employee("Employee " + i, 30, "Male", 1000));
+        }
+        List<Long> ids = employeeRepository.insertAll(batch).stream().map(Employee::getId).collect(Collectors.toList());
+        ids.forEach(employeeRepository::deactivate);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch compacted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        executor.submit(() -> runConcurrently(start, failures, () -> {
+            employeeRepository.compactInactive(Duration.ZERO);
+            compacted.countDown();
+        }));
+        executor.submit(() -> runConcurrently(start, failures, () -> {
+            while (compacted.getCount() > 0) {
+                for (Long id : ids) {
+                    //Table first, then archive, like reads with includeInactive
+                    Employee seen;
+                    try {
+                        seen = employeeRepository.findById(id);
+                    } catch (EmployeeNotFoundException notInTable) {
+                        seen = employeeRepository.findArchivedById(id);
+                    }
+                    assertNotNull(seen, "Employee " + id + " was in neither the table nor the archive");
+                }
+            }
+        }));
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(failures.isEmpty(), () -> "Read during compaction failed with " + failures.peek());
+        assertEquals(rowCount, employeeRepository.archivedSize());
+    }
+
+    private static void runConcurrently(CountDownLatch start, Queue<Throwable> failures, Runnable work) {
+        try {
+            start.await();
+            work.run();
+        } catch (Throwable throwable) {
+            failures.add(throwable);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmployeeStatisticsTest {
+
+    @Test
+    void should_count_company_row_once_when_update_lands_before_insert_given_new_company() {
+        EmployeeStatistics statistics = new EmployeeStatistics();
+        Employee inserted = inCompany(new Employee(1L, "John Doe", 30, "Male", 5000), 7L);
+        Employee updated = inCompany(new Employee(1L, "John Doe", 31, "Male", 6000), 7L);
+
+        //The update's remove and add reach the company before the insert's add
+        statistics.remove(inserted);
+        statistics.add(updated);
+        statistics.add(inserted);
+
+        assertEquals(1L, statistics.summary(7L).getCount());
+        assertEquals(6000L, statistics.summary(7L).getSalary().getSum());
+        assertEquals(1L, statistics.summary().getCount());
+    }
+
+    @Test
+    void should_drop_company_group_when_its_last_row_is_removed() {
+        EmployeeStatistics statistics = new EmployeeStatistics();
+        Employee employee = inCompany(new Employee(1L, "John Doe", 30, "Male", 5000), 7L);
+        statistics.add(employee);
+
+        statistics.remove(employee);
+
+        assertEquals(0, statistics.companyCount());
+        assertEquals(0L, statistics.summary(7L).getCount());
+    }
+
+    private static Employee inCompany(Employee employee, Long companyId) {
+        employee.setCompanyId(companyId);
+        return employee;
+    }
+}
@@ -0,0 +1,53 @@
+package com.thoughtworks.springboot.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    @Test
+    void should_continue_after_highest_existing_id_when_nextId_given_seeded_generator() {
+        IdGenerator idGenerator = new IdGenerator();
+        idGenerator.advanceTo(7L);
+        idGenerator.advanceTo(3L);
+
+        assertEquals(8L, idGenerator.nextId());
+    }
+
+    @Test
+    void should_return_contiguous_block_when_reserve_given_count() {
+        IdGenerator idGenerator = new IdGenerator();
+        idGenerator.nextId();
+
+        Long firstId = idGenerator.reserve(10);
+
+        assertEquals(2L, firstId);
+        assertEquals(12L, idGenerator.nextId());
+    }
+
+    @Test
+    void should_hand_out_unique_ids_when_nextId_called_concurrently() throws InterruptedException {
+        IdGenerator idGenerator = new IdGenerator();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    ids.add(idGenerator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(80_000, ids.size());
+    }
+}
@@ -0,0 +1,51 @@
+package com.thoughtworks.springboot.repository;
+
+import com.thoughtworks.springboot.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryTableTest {
+
+    @Test
+    void should_keep_lookups_and_iteration_in_step_when_put_and_remove_race_on_the_same_id() throws Exception {
+        InMemoryTable<Employee> table = new InMemoryTable<>(Employee::getId);
+
+        for (long id = 1; id <= 2_000; id++) {
+            Employee employee = new Employee(id, "Employee " + id, 30, "Male", 1000);
+            table.put(employee);
+            CountDownLatch start = new CountDownLatch(1);
+            long removedId = id;
+            CompletableFuture<Void> remove = CompletableFuture.runAsync(() -> {
+                awaitQuietly(start);
+                //Both removals, by id and compare-and-delete
+                if (removedId % 2 == 0) {
+                    table.remove(removedId);
+                } else {
+                    table.remove(employee);
+                }
+            });
+            CompletableFuture<Void> put = CompletableFuture.runAsync(() -> {
+                awaitQuietly(start);
+                table.put(employee);
+            });
+            start.countDown();
+            CompletableFuture.allOf(remove, put).get();
+
+            long streamed = table.stream().filter(row -> row.getId() == removedId).count();
+            assertEquals(table.get(id) == null ? 0 : 1, streamed, "Row " + id + " is visible to get and stream differently");
+            assertEquals(streamed, table.pageAfter(id - 1, 1).getItems().size());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
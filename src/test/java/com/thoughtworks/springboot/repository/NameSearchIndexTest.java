@@ -0,0 +1,157 @@
+package com.thoughtworks.springboot.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NameSearchIndexTest {
+
+    @Test
+    void should_rank_name_prefix_then_later_word_then_misspelling_when_search_given_indexed_names() {
+        NameSearchIndex index = new NameSearchIndex();
+        index.add("Jon Snow", 1L);
+        index.add("Mary Jonas", 2L);
+        index.add("John Doe", 3L);
+        index.add("Jane Doe", 4L);
+
+        assertEquals(List.of(1L, 2L, 3L), index.search("jon", 10));
+        assertEquals(List.of(3L, 4L), index.search("  DOE ", 10));
+        assertEquals(List.of(3L), index.search("jonh doe", 10));
+        assertEquals(List.of(1L), index.search("jon", 1));
+    }
+
+    @Test
+    void should_find_short_names_when_search_given_transposed_letters() {
+        NameSearchIndex index = new NameSearchIndex();
+        index.add("John Doe", 1L);
+        index.add("Mary Smith", 2L);
+
+        //No trigram in common with the intended word
+        assertEquals(List.of(1L), index.search("jhon", 10));
+        assertEquals(List.of(1L), index.search("jhon deo", 10));
+        assertEquals(List.of(2L), index.search("mray", 10));
+        index.remove("John Doe", 1L);
+        assertTrue(index.search("jhon", 10).isEmpty());
+    }
+
+    @Test
+    void should_find_only_the_new_name_when_search_given_moved_and_removed_names() {
+        NameSearchIndex index = new NameSearchIndex();
+        index.add("OOCL", 1L);
+        index.add("Thoughtworks", 2L);
+
+        index.move("OOCL", "Orient Overseas", 1L);
+        index.remove("Thoughtworks", 2L);
+
+        assertTrue(index.search("oocl", 10).isEmpty());
+        assertEquals(List.of(1L), index.search("overseas", 10));
+        assertTrue(index.search("thoughtworks", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.search("o", NameSearchIndex.MAX_LIMIT + 1));
+    }
+
+    @Test
+    void should_rank_misspellings_by_distance_then_id_when_search_given_limit_below_matches() {
+        NameSearchIndex index = new NameSearchIndex();
+        for (long id = 1; id <= 3; id++) {
+            index.add("Jonothan", id);
+            index.add("Jonathan", id + 3);
+        }
+        index.add("Jonathon", 7L);
+        index.add("Jonathen Doe", 9L);
+
+        //"jonathan" and "jonathon" are one edit from the query, "jonothan" two
+        assertEquals(List.of(9L, 4L, 5L), index.search("jonathen", 3));
+        assertEquals(List.of(9L, 4L, 5L, 6L, 7L, 1L), index.search("jonathen", 6));
+    }
+
+    @Test
+    void should_rank_names_by_summed_distance_when_search_given_several_misspelled_words() {
+        NameSearchIndex index = new NameSearchIndex();
+        index.add("Jonathan Smith", 1L);
+        index.add("Jonothan Smith", 2L);
+        index.add("Jonathan Smyth", 3L);
+        index.add("Jonathan Jones", 4L);
+        for (long id = 10; id < 20; id++) {
+            index.add("Smith", id);
+        }
+
+        assertEquals(List.of(1L), index.search("jonathen smith", 1));
+        assertEquals(List.of(1L, 2L, 3L), index.search("jonathen smith", 10));
+    }
+
+    @Test
+    void should_keep_added_id_when_add_and_remove_race_on_the_same_name() throws Exception {
+        NameSearchIndex index = new NameSearchIndex();
+
+        for (long round = 1; round <= 2_000; round++) {
+            //Fixed width, so no query is a prefix of another round's name
+            String number = String.format("%05d", round);
+            String name = "Mary Jane " + number + "son";
+            index.add(name, -round);
+            CountDownLatch start = new CountDownLatch(1);
+            long addedId = round;
+            //The removal empties the key's set while the add puts a second id into it
+            CompletableFuture<Void> remove = CompletableFuture.runAsync(() -> {
+                awaitQuietly(start);
+                index.remove(name, -addedId);
+            });
+            CompletableFuture<Void> add = CompletableFuture.runAsync(() -> {
+                awaitQuietly(start);
+                index.add(name, addedId);
+            });
+            start.countDown();
+            CompletableFuture.allOf(remove, add).get();
+
+            //The queries end three letters short of the last word, too far for the fuzzy tier to match them
+            assertEquals(List.of(round), index.search("mary jane " + number, 10), "Id lost for " + name);
+            assertEquals(List.of(round), index.search("jane " + number, 10), "Id lost for the later words of " + name);
+        }
+    }
+
+    @Test
+    void should_answer_prefix_search_in_under_a_millisecond_when_index_is_large() {
+        int names = 200_000;
+        NameSearchIndex index = new NameSearchIndex();
+        Random random = new Random(names);
+        for (long id = 1; id <= names; id++) {
+            index.add(randomWord(random) + " " + randomWord(random), id);
+        }
+        String[] queries = {"a", "ke", "mor", "zu", "ba la"};
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 10_000; i++) {
+                index.search(queries[i % queries.length], 10);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double nanosPerSearch = (double) best / 10_000;
+        assertTrue(nanosPerSearch < 1_000_000, "search took " + nanosPerSearch + "ns on " + names + " names");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String randomWord(Random random) {
+        String[] syllables = {"ba", "ke", "la", "mor", "ni", "so", "ta", "zu", "an", "el"};
+        StringBuilder word = new StringBuilder();
+        for (int i = 0, length = 2 + random.nextInt(3); i < length; i++) {
+            word.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.thoughtworks.springboot.service;
+
+import com.thoughtworks.springboot.exception.CompanyNotFoundException;
+import com.thoughtworks.springboot.model.CompanyDeletionStatus;
+import com.thoughtworks.springboot.persistence.SnapshotStore;
+import com.thoughtworks.springboot.persistence.WriteAheadLog;
+import com.thoughtworks.springboot.repository.CompanyRepository;
+import com.thoughtworks.springboot.repository.EmployeeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompanyDeletionServiceTest {
+
+    private EmployeeRepository employeeRepository;
+    private CompanyRepository companyRepository;
+    private CompanyDeletionService companyDeletionService;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository = new EmployeeRepository();
+        companyRepository = new CompanyRepository(employeeRepository, WriteAheadLog.disabled(), SnapshotStore.disabled());
+        companyDeletionService = new CompanyDeletionService(companyRepository, new EmployeeService(employeeRepository, companyRepository), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        companyDeletionService.shutdown();
+    }
+
+    @Test
+    void should_remove_company_at_once_and_detach_employees_in_background_when_requestDeletion_given_company_with_employees() throws InterruptedException {
+        CompanyDeletionStatus status = companyDeletionService.requestDeletion(1L);
+
+        assertThrows(CompanyNotFoundException.class, () -> companyRepository.findById(1L));
+        assertSame(status, companyDeletionService.getStatus(1L));
+        awaitDone(status);
+        assertEquals(CompanyDeletionStatus.State.COMPLETED, status.getState());
+        assertEquals(3L, status.getDetachedEmployees());
+        assertTrue(employeeRepository.findByCompanyId(1L).isEmpty());
+        assertEquals(4L, employeeRepository.findByCompanyId(2L).get(0).getId());
+    }
+
+    @Test
+    void should_resume_detaching_when_start_given_employees_of_an_already_deleted_company() throws InterruptedException {
+        companyRepository.deleteCompanyById(2L);
+
+        CompanyDeletionService restarted = new CompanyDeletionService(companyRepository, new EmployeeService(employeeRepository, companyRepository), 2);
+        try {
+            CompanyDeletionStatus status = restarted.getStatus(2L);
+            assertNotNull(status);
+            awaitDone(status);
+            assertEquals(CompanyDeletionStatus.State.COMPLETED, status.getState());
+            assertTrue(employeeRepository.findByCompanyId(2L).isEmpty());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    private static void awaitDone(CompanyDeletionStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (status.getState() == CompanyDeletionStatus.State.IN_PROGRESS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -2,12 +2,22 @@ package com.thoughtworks.springboot.service;
 
 import com.thoughtworks.springboot.exception.EmployeeCreateException;
 import com.thoughtworks.springboot.exception.EmployeeNotFoundException;
+import com.thoughtworks.springboot.metrics.MetricsConfiguration;
+import com.thoughtworks.springboot.model.BatchImportResult;
 import com.thoughtworks.springboot.model.Employee;
+import com.thoughtworks.springboot.model.EmployeeViolation;
+import com.thoughtworks.springboot.model.ValidationResult;
+import com.thoughtworks.springboot.persistence.SnapshotStore;
+import com.thoughtworks.springboot.persistence.WriteAheadLog;
+import com.thoughtworks.springboot.repository.CompanyRepository;
 import com.thoughtworks.springboot.repository.EmployeeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -68,30 +78,101 @@ class EmployeeServiceTest {
         assertEquals(savedEmployee.getIsActive(), employeeResponse.getIsActive());
     }
 
+    @Test
+    void should_report_every_violation_without_throwing_when_validate_given_reused_result() {
+        ValidationResult validation = new ValidationResult();
+
+        employeeService.validate(new Employee(null, null, 70, "Unknown", -1), validation);
+
+        assertFalse(validation.isValid());
+        assertEquals(List.of("Name cannot be null or empty.", "Employee must be 18-65", "Gender must be 'Male' or 'Female'.", "Salary must be a positive number."),
+                validation.getViolations());
+        assertTrue(employeeService.validate(new Employee(null, "Lucy", 20, "Female", 3000), validation).isValid());
+    }
+
+    @Test
+    void should_insert_only_when_create_given_validation_result_that_passed() {
+        Employee employee = new Employee(null, "Lucy", 20, "Female", 3000);
+        Employee savedEmployee = new Employee(1L, "Lucy", 20, "Female", 3000);
+        when(mockedEmployeeRepository.insert(employee)).thenReturn(savedEmployee);
+        ValidationResult failed = employeeService.validate(new Employee(null, "Lucy", 17, "Female", 3000));
+
+        assertThrows(EmployeeCreateException.class, () -> employeeService.create(employee, failed));
+        verify(mockedEmployeeRepository, never()).insert(any());
+
+        assertSame(savedEmployee, employeeService.create(employee, employeeService.validate(employee)));
+        verify(mockedEmployeeRepository).insert(employee);
+    }
+
+    @Test
+    void should_count_each_violation_when_validate_given_invalid_employee() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EmployeeService meteredEmployeeService = new EmployeeService(mockedEmployeeRepository, new NoOpCacheManager(), meterRegistry);
+
+        meteredEmployeeService.validate(new Employee(null, "Lucy", 70, "Unknown", 3000));
+        meteredEmployeeService.validateUpdate(new Employee(1L, "Lucy", 70, "Unknown", 3000));
+
+        assertEquals(2.0, meterRegistry.counter(MetricsConfiguration.VALIDATION_FAILURES, "violation", "GENDER_INVALID").count());
+        assertEquals(1.0, meterRegistry.counter(MetricsConfiguration.VALIDATION_FAILURES, "violation", "AGE_OUT_OF_RANGE").count());
+        assertEquals(0.0, meterRegistry.counter(MetricsConfiguration.VALIDATION_FAILURES, "violation", "NAME_MISSING").count());
+    }
+
     @Test
     void should_set_isActive_to_false_when_existing_employee_is_deleted_given_employee_service_and_existing_employee_id() {
         // Given
         Long employeeId = 1L;
-        Employee existingEmployee = new Employee(1L, "Lucy", 20, "Female", 3000);
-        when(mockedEmployeeRepository.findById(employeeId)).thenReturn(existingEmployee);
+        Employee deactivatedEmployee = new Employee(1L, "Lucy", 20, "Female", 3000);
+        deactivatedEmployee.setIsActive(false);
+        when(mockedEmployeeRepository.deactivate(employeeId)).thenReturn(deactivatedEmployee);
 
         // When
         boolean isEmployeeDeleted = employeeService.delete(employeeId);
 
         // Then
         assertTrue(isEmployeeDeleted);
-        assertFalse(existingEmployee.getIsActive());
+        //The repository builds the inactive copy from the current row, the service never passes one in
+        verify(mockedEmployeeRepository).deactivate(employeeId);
+        verify(mockedEmployeeRepository, never()).updateEmployee(any());
+    }
 
-        verify(mockedEmployeeRepository).updateEmployee(argThat(tempEmployee -> {
-            assertFalse(tempEmployee.getIsActive());
-            assertEquals(employeeId, tempEmployee.getId());
-            assertEquals("Lucy", tempEmployee.getName());
-            assertEquals(20, tempEmployee.getAge());
-            assertEquals("Female", tempEmployee.getGender());
-            assertEquals(3000, tempEmployee.getSalary());
+    @Test
+    void should_drop_employee_from_statistics_when_delete_given_service_over_real_repository() {
+        EmployeeRepository employeeRepository = new EmployeeRepository();
+        employeeRepository.cleanUpEmployeeData();
+        EmployeeService realEmployeeService = new EmployeeService(employeeRepository);
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 30000));
+        employeeRepository.insert(new Employee("Jane Doe", 25, "Female", 10000));
+
+        realEmployeeService.delete(johnDoe.getId());
+
+        assertEquals(1L, realEmployeeService.getEmployeeStatistics().getCount());
+        assertEquals(10000L, realEmployeeService.getEmployeeStatistics().getSalary().getSum());
+        assertFalse(realEmployeeService.findEmployeeById(johnDoe.getId()).getIsActive());
+    }
 
-            return true;
-        }));
+    @Test
+    void should_reject_deleted_company_when_create_and_createBatch_given_service_over_real_repositories() {
+        EmployeeRepository employeeRepository = new EmployeeRepository();
+        CompanyRepository companyRepository = new CompanyRepository(employeeRepository, WriteAheadLog.disabled(), SnapshotStore.disabled());
+        EmployeeService realEmployeeService = new EmployeeService(employeeRepository, companyRepository);
+        companyRepository.deleteCompanyById(2L);
+
+        assertThrows(EmployeeCreateException.class, () -> realEmployeeService.create(inCompany(new Employee(null, "Lucy", 20, "Female", 3000), 2L)));
+        assertThrows(EmployeeCreateException.class, () -> realEmployeeService.create(inCompany(new Employee(null, "Lucy", 20, "Female", 3000), 99L)));
+        BatchImportResult result = realEmployeeService.createBatch(List.of(
+                inCompany(new Employee(null, "Kept", 20, "Female", 3000), 1L),
+                inCompany(new Employee(null, "Orphan", 20, "Female", 3000), 2L)));
+
+        assertEquals(1, result.getCreated().size());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(1, result.getFailures().get(0).getRow());
+        assertEquals(EmployeeViolation.COMPANY_UNKNOWN.getMessage(), result.getFailures().get(0).getMessage());
+        assertTrue(employeeRepository.findByCompanyId(2L).stream().noneMatch(employee -> "Orphan".equals(employee.getName())));
+    }
+
+    private static Employee inCompany(Employee employee, Long companyId) {
+        employee.setCompanyId(companyId);
+        return employee;
     }
 
     @Test
@@ -105,7 +186,6 @@ class EmployeeServiceTest {
 
         Employee result = employeeService.update(updatedEmployee);
 
-        //TODO Failing Test
         assertEquals(updatedEmployee.getAge(), result.getAge());
         assertEquals(updatedEmployee.getSalary(), result.getSalary());
         assertTrue(existingEmployee.getIsActive());
@@ -120,6 +200,21 @@ class EmployeeServiceTest {
         assertEquals(426969, updatedResultEmployee.getSalary());
     }
 
+    @Test
+    void should_store_submitted_values_when_update_given_service_over_real_repository() {
+        EmployeeRepository employeeRepository = new EmployeeRepository();
+        employeeRepository.cleanUpEmployeeData();
+        EmployeeService realEmployeeService = new EmployeeService(employeeRepository);
+        Employee johnDoe = employeeRepository.insert(new Employee("John Doe", 42, "Male", 696969));
+
+        realEmployeeService.update(new Employee(johnDoe.getId(), "John Doe", 69, "Male", 426942));
+
+        Employee storedEmployee = employeeRepository.findById(johnDoe.getId());
+        assertEquals(69, storedEmployee.getAge());
+        assertEquals(426942, storedEmployee.getSalary());
+        assertTrue(storedEmployee.getIsActive());
+    }
+
     @Test
     void should_throw_exception_when_update_given_employee_service_and_invalid_employee() {
         long invalidEmployeeId = 99L;
@@ -192,6 +287,40 @@ class EmployeeServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void should_serve_cached_employee_until_update_when_findEmployeeById_given_caching_service() {
+        EmployeeService cachingEmployeeService = new EmployeeService(mockedEmployeeRepository, new ConcurrentMapCacheManager());
+        Employee employee = new Employee(1L, "John Doe", 30, "Male", 50000);
+        when(mockedEmployeeRepository.findById(1L)).thenReturn(employee);
+        when(mockedEmployeeRepository.updateEmployee(employee)).thenReturn(employee);
+
+        cachingEmployeeService.findEmployeeById(1L);
+        cachingEmployeeService.findEmployeeById(1L);
+        verify(mockedEmployeeRepository, times(1)).findById(1L);
+
+        cachingEmployeeService.update(employee);
+        cachingEmployeeService.findEmployeeById(1L);
+        verify(mockedEmployeeRepository, times(3)).findById(1L);
+    }
+
+    @Test
+    void should_reload_only_affected_gender_when_create_given_cached_gender_queries() {
+        EmployeeService cachingEmployeeService = new EmployeeService(mockedEmployeeRepository, new ConcurrentMapCacheManager());
+        Employee newEmployee = new Employee(null, "Jane Smith", 25, "Female", 45000);
+        when(mockedEmployeeRepository.findByGender(anyString())).thenReturn(new ArrayList<>());
+        when(mockedEmployeeRepository.insert(newEmployee)).thenReturn(new Employee(2L, "Jane Smith", 25, "Female", 45000));
+        cachingEmployeeService.findEmployeeByGender("Male");
+        cachingEmployeeService.findEmployeeByGender("Female");
+
+        cachingEmployeeService.create(newEmployee);
+        cachingEmployeeService.findEmployeeByGender("male");
+        cachingEmployeeService.findEmployeeByGender("Female");
+
+        verify(mockedEmployeeRepository, times(1)).findByGender("Male");
+        verify(mockedEmployeeRepository, never()).findByGender("male");
+        verify(mockedEmployeeRepository, times(2)).findByGender("Female");
+    }
+
     @Test
     void should_return_employees_by_page_when_findEmployeesByPage_called_with_valid_page() {
         Long pageNumber = 1L;